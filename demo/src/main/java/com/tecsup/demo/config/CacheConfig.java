@@ -1,6 +1,7 @@
 package com.tecsup.demo.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -67,4 +68,21 @@ public class CacheConfig {
                 .expireAfterWrite(30, TimeUnit.MINUTES)  // Más tiempo de vida para tareas
                 .expireAfterAccess(15, TimeUnit.MINUTES);
     }
+
+    /**
+     * Configuración del cache de instantáneas de estadísticas.
+     * Tras el intervalo de refresco, la siguiente lectura devuelve la instantánea vigente
+     * y dispara su recálculo en segundo plano (stale-while-revalidate).
+     * 
+     * @param refreshInterval Intervalo de refresco en milisegundos
+     * @return Configuración de Caffeine para instantáneas de estadísticas
+     */
+    @Bean
+    public Caffeine<Object, Object> statisticsSnapshotCacheConfig(
+            @Value("${statistics.snapshot.refresh-interval-ms:30000}") long refreshInterval) {
+        return Caffeine.newBuilder()
+                .maximumSize(50)                     // Pocas claves: general y ranking por límite
+                .refreshAfterWrite(refreshInterval, TimeUnit.MILLISECONDS)
+                .recordStats();
+    }
 } 
\ No newline at end of file
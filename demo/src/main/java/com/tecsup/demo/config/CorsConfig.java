@@ -40,14 +40,25 @@ public class CorsConfig {
                 "Origin",
                 "X-Requested-With",
                 "Access-Control-Request-Method",
-                "Access-Control-Request-Headers"
+                "Access-Control-Request-Headers",
+                "Range",
+                "If-None-Match",
+                "Idempotency-Key"
         ));
         
         // Headers expuestos al cliente
         configuration.setExposedHeaders(Arrays.asList(
                 "Access-Control-Allow-Origin",
                 "Access-Control-Allow-Credentials",
-                "Authorization"
+                "Authorization",
+                "X-Next-Cursor",
+                "X-Snapshot-Generated-At",
+                "X-Snapshot-Max-Staleness",
+                "Location",
+                "ETag",
+                "Content-Range",
+                "Content-Disposition",
+                "Idempotent-Replayed"
         ));
         
         // Permitir credenciales (cookies, headers de autorización)
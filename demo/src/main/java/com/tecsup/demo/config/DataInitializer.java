@@ -2,9 +2,9 @@ package com.tecsup.demo.config;
 
 import com.tecsup.demo.entity.User;
 import com.tecsup.demo.repository.UserRepository;
+import com.tecsup.demo.service.PasswordHashingService;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 /**
@@ -15,11 +15,11 @@ import org.springframework.stereotype.Component;
 public class DataInitializer {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
-    public DataInitializer(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public DataInitializer(UserRepository userRepository, PasswordHashingService passwordHashingService) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
     }
 
     /**
@@ -87,7 +87,7 @@ public class DataInitializer {
         if (userRepository.findByUsername(username).isEmpty()) {
             User user = new User();
             user.setUsername(username);
-            user.setPassword(passwordEncoder.encode(rawPassword));
+            user.setPassword(passwordHashingService.encode(rawPassword));
             user.setEmail(email);
             user.setFirstName(firstName);
             user.setLastName(lastName);
@@ -0,0 +1,105 @@
+package com.tecsup.demo.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Alinea las secuencias de IDs de usuarios, tareas y entregas con los datos existentes.
+ * Las entidades generan sus IDs con secuencias agrupadas (bloques de 50) para que Hibernate
+ * pueda agrupar los INSERT en lotes JDBC. Las bases que antes usaban columnas autoincrementales
+ * ya tienen filas, así que antes de aceptar peticiones cada secuencia se adelanta hasta que el
+ * siguiente bloque quede por encima del mayor ID existente.
+ *
+ * En PostgreSQL y H2 se usan secuencias nativas; MySQL no tiene secuencias y Hibernate las
+ * emula con una tabla de una sola fila (columna next_val). En cualquier otra base la alineación
+ * se omite con una advertencia: es una reparación de datos heredados y no debe impedir el arranque.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    private static final Set<String> SUPPORTED_DATABASES = Set.of("PostgreSQL", "H2", "MySQL");
+
+    /**
+     * Tamaño del bloque; debe coincidir con el allocationSize de los @SequenceGenerator
+     */
+    static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * Tabla de cada entidad y su secuencia
+     */
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users_seq",
+            "tasks", "tasks_seq",
+            "submissions", "submissions_seq"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adelanta las secuencias que quedaron por detrás de los IDs existentes
+     */
+    @PostConstruct
+    public void alignSequences() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!SUPPORTED_DATABASES.contains(database)) {
+            log.warn("No se alinean las secuencias de IDs: base de datos {} no soportada", database);
+            return;
+        }
+
+        for (Map.Entry<String, String> entry : SEQUENCES.entrySet()) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + entry.getKey(), Long.class);
+            if (maxId == null) {
+                continue;
+            }
+            // El optimizador agrupado reparte los IDs (valor - 50, valor], por eso el siguiente
+            // valor de la secuencia debe ser al menos el mayor ID más el tamaño del bloque
+            long target = maxId + ALLOCATION_SIZE;
+            try {
+                align(database, entry.getValue(), target);
+            } catch (DataAccessException e) {
+                throw new IllegalStateException("No se pudo alinear la secuencia " + entry.getValue(), e);
+            }
+        }
+    }
+
+    private void align(String database, String sequence, long target) {
+        switch (database) {
+            case "PostgreSQL" -> {
+                Long next = jdbcTemplate.queryForObject(
+                        "SELECT CASE WHEN is_called THEN last_value + " + ALLOCATION_SIZE + " ELSE last_value END FROM " + sequence,
+                        Long.class);
+                if (next != null && next < target) {
+                    jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', ?, false)", Long.class, target);
+                }
+            }
+            case "H2" -> {
+                Long next = jdbcTemplate.queryForObject(
+                        "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = ?",
+                        Long.class, sequence);
+                if (next != null && next < target) {
+                    jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + target);
+                }
+            }
+            case "MySQL" -> jdbcTemplate.update(
+                    "UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", target, target);
+            default -> throw new IllegalArgumentException("Base de datos no soportada: " + database);
+        }
+    }
+}
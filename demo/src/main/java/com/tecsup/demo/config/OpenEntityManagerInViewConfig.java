@@ -0,0 +1,31 @@
+package com.tecsup.demo.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registra el patrón "Open EntityManager in View" que Spring Boot aplicaría por defecto
+ * (spring.jpa.open-in-view), excluyendo las conexiones de larga duración.
+ * Con el patrón activo, el EntityManager de la solicitud conserva su conexión JDBC hasta que
+ * la solicitud termina; en un canal SSE eso ocuparía una conexión del pool durante toda la suscripción.
+ */
+@Configuration
+public class OpenEntityManagerInViewConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public OpenEntityManagerInViewConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor)
+                .excludePathPatterns("/api/submissions/task/*/events");
+    }
+}
@@ -2,8 +2,12 @@ package com.tecsup.demo.config;
 
 import com.tecsup.demo.security.JwtAuthenticationEntryPoint;
 import com.tecsup.demo.security.JwtAuthenticationFilter;
+import com.tecsup.demo.security.JwtPrincipalCache;
 import com.tecsup.demo.security.JwtUtil;
 import com.tecsup.demo.service.CustomUserDetailsService;
+import com.tecsup.demo.service.PasswordHashingService;
+import com.tecsup.demo.service.TokenRevocationService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.*;
 import org.springframework.security.authentication.*;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
@@ -24,16 +28,21 @@ public class SecurityConfig {
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
     private final JwtAuthenticationEntryPoint entryPoint;
+    private final JwtPrincipalCache principalCache;
+    private final TokenRevocationService revocationService;
 
-    public SecurityConfig(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService, JwtAuthenticationEntryPoint entryPoint) {
+    public SecurityConfig(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService, JwtAuthenticationEntryPoint entryPoint,
+                          JwtPrincipalCache principalCache, TokenRevocationService revocationService) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
         this.entryPoint = entryPoint;
+        this.principalCache = principalCache;
+        this.revocationService = revocationService;
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtUtil, userDetailsService);
+        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtUtil, principalCache, revocationService);
 
         return http
                 .cors(cors -> cors.configurationSource(request -> {
@@ -41,12 +50,18 @@ public class SecurityConfig {
                     config.setAllowCredentials(true);
                     config.addAllowedOriginPattern("*");
                     config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-                    config.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+                    config.setAllowedHeaders(List.of("Authorization", "Content-Type", "Range", "If-None-Match", "Idempotency-Key"));
+                    config.setExposedHeaders(List.of("X-Next-Cursor", "X-Snapshot-Generated-At", "X-Snapshot-Max-Staleness", "Location",
+                            "ETag", "Content-Range", "Content-Disposition", "Idempotent-Replayed"));
                     return config;
                 }))
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // La reanudación asíncrona (SSE, descargas en streaming) continúa una solicitud ya autorizada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // El despacho a /error muestra el 403 de una regla de URL en lugar de convertirlo en 401
+                        .dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
                         .requestMatchers(
                                 "/api/auth/login",
                                 "/v3/api-docs",
@@ -58,6 +73,7 @@ public class SecurityConfig {
                                 "/configuration/**",
                                 "/webjars/**"
                         ).permitAll()
+                        .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasRole("ADMIN")
 
                         .anyRequest().authenticated()
                 )
@@ -67,11 +83,15 @@ public class SecurityConfig {
     }
 
 
+    /**
+     * La verificación de contraseñas del inicio de sesión se calcula en el pool acotado de PasswordHashingService,
+     * no en el hilo HTTP
+     */
     @Bean
-    public AuthenticationManager authenticationManager(HttpSecurity http) throws Exception {
+    public AuthenticationManager authenticationManager(HttpSecurity http, PasswordHashingService passwordHashingService) throws Exception {
         return http.getSharedObject(AuthenticationManagerBuilder.class)
                 .userDetailsService(userDetailsService)
-                .passwordEncoder(passwordEncoder())
+                .passwordEncoder(passwordHashingService.asPasswordEncoder())
                 .and()
                 .build();
     }
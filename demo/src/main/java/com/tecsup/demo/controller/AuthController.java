@@ -3,18 +3,25 @@ package com.tecsup.demo.controller;
 import com.tecsup.demo.dto.LoginRequest;
 import com.tecsup.demo.dto.LoginResponse;
 import com.tecsup.demo.security.JwtUtil;
-import com.tecsup.demo.service.CustomUserDetailsService;
+import com.tecsup.demo.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controlador para operaciones de autenticación
  */
@@ -26,12 +33,12 @@ public class AuthController {
 
     private final AuthenticationManager authManager;
     private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService revocationService;
 
-    public AuthController(AuthenticationManager authManager, JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public AuthController(AuthenticationManager authManager, JwtUtil jwtUtil, TokenRevocationService revocationService) {
         this.authManager = authManager;
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.revocationService = revocationService;
     }
 
     /**
@@ -48,19 +55,29 @@ public class AuthController {
                     new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
             );
 
-            UserDetails user = userDetailsService.loadUserByUsername(request.getUsername());
+            // El AuthenticationManager ya cargó el usuario para verificar la contraseña
+            UserDetails user = (UserDetails) auth.getPrincipal();
             String token = jwtUtil.generateToken(user);
             
             return ResponseEntity.ok(new LoginResponse(token, "Autenticación exitosa"));
         } catch (BadCredentialsException e) {
             return ResponseEntity.badRequest().body("Credenciales inválidas");
+        } catch (RejectedExecutionException e) {
+            // El pool de contraseñas está saturado: se responde 503 para que el cliente reintente
+            throw e;
+        } catch (InternalAuthenticationServiceException e) {
+            // Con un usuario inexistente la verificación de contraseña ocurre al buscarlo y el rechazo llega envuelto
+            if (e.getCause() instanceof RejectedExecutionException rejected) {
+                throw rejected;
+            }
+            return ResponseEntity.internalServerError().body("Error en la autenticación");
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Error en la autenticación");
         }
     }
 
     /**
-     * Verifica si un token JWT es válido
+     * Verifica si un token JWT es válido: firma, expiración y revocación, sin consultar la base de datos
      * 
      * @param token Token JWT a verificar
      * @return true si el token es válido
@@ -68,15 +85,58 @@ public class AuthController {
     @PostMapping("/verify")
     @Operation(summary = "Verificar token", description = "Verifica si un token JWT es válido")
     public ResponseEntity<?> verifyToken(@RequestParam String token) {
-        try {
-            // Extraer el username del token
-            String username = jwtUtil.extractUsername(token);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            boolean isValid = jwtUtil.validateToken(token, userDetails);
-            return ResponseEntity.ok(isValid);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(false);
+        if (activeClaims(token).isPresent()) {
+            return ResponseEntity.ok(true);
+        }
+        return ResponseEntity.badRequest().body(false);
+    }
+
+    /**
+     * Cierra la sesión revocando el token con el que se hizo la solicitud
+     * 
+     * @param authorization Cabecera Authorization con el token
+     * @return 204 si el token se revocó
+     */
+    @PostMapping("/logout")
+    @Operation(summary = "Cerrar sesión", description = "Revoca el token JWT actual hasta su expiración")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        String token = authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization;
+        return revoke(token) ? ResponseEntity.noContent().build() : ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * Revoca un token JWT antes de su expiración (solo administradores)
+     * 
+     * @param token Token JWT a revocar
+     * @return 204 si el token se revocó o 400 si no es válido o ya expiró
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/revoke")
+    @Operation(summary = "Revocar token", description = "Revoca un token JWT hasta su expiración (solo administradores)")
+    public ResponseEntity<Void> revokeToken(@RequestParam String token) {
+        return revoke(token) ? ResponseEntity.noContent().build() : ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * Revoca un token válido con jti; los tokens emitidos antes de incluir el jti no se pueden revocar
+     */
+    private boolean revoke(String token) {
+        Optional<Claims> claims = activeClaims(token);
+        if (claims.isEmpty() || claims.get().getId() == null) {
+            return false;
+        }
+        revocationService.revoke(claims.get().getId(),
+                claims.get().get(JwtUtil.USER_ID_CLAIM, Long.class),
+                claims.get().getExpiration());
+        return true;
+    }
+
+    private Optional<Claims> activeClaims(String token) {
+        Optional<Claims> claims = jwtUtil.verify(token);
+        if (claims.isPresent() && claims.get().getId() != null && revocationService.isRevoked(claims.get().getId())) {
+            return Optional.empty();
         }
+        return claims;
     }
 }
 
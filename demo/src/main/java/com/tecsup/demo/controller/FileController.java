@@ -0,0 +1,87 @@
+package com.tecsup.demo.controller;
+
+import com.tecsup.demo.entity.User;
+import com.tecsup.demo.service.SubmissionFileService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Controlador de descarga de archivos del almacén local
+ */
+@RestController
+@RequestMapping("/api/files")
+@Tag(name = "Archivos", description = "Descarga de archivos adjuntados a las entregas")
+@CrossOrigin(origins = "*")
+public class FileController {
+
+    private final SubmissionFileService submissionFileService;
+
+    public FileController(SubmissionFileService submissionFileService) {
+        this.submissionFileService = submissionFileService;
+    }
+
+    /**
+     * Descarga un archivo por su hash. Soporta Range (descargas reanudables) e If-None-Match
+     *
+     * @param hash Hash SHA-256 del contenido
+     * @param user Usuario autenticado
+     * @return Archivo, 206 para rangos, 304 si no cambió, 403 o 404
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{hash}")
+    @Operation(summary = "Descargar archivo", description = "Descarga un archivo del almacén; los estudiantes solo acceden a sus propios archivos")
+    public ResponseEntity<Resource> download(@PathVariable String hash, @AuthenticationPrincipal User user) {
+        if (!submissionFileService.canDownload(user, hash)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return submissionFileService.find(hash)
+                .map(path -> fileResponse(path, hash, null))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Construye la respuesta de descarga de un archivo del almacén.
+     * El hash sirve de ETag fuerte porque el contenido de una ruta nunca cambia; Spring MVC responde
+     * 304 cuando coincide con If-None-Match y, si llega una cabecera Range, envía solo las regiones
+     * pedidas (206) leyendo el archivo por bloques, con memoria constante sin importar su tamaño.
+     *
+     * @param path Ruta del archivo
+     * @param hash Hash del contenido
+     * @param fileName Nombre para la descarga; null para no sugerir nombre
+     * @return Respuesta con el archivo
+     */
+    static ResponseEntity<Resource> fileResponse(Path path, String hash, String fileName) {
+        MediaType mediaType = fileName != null
+                ? MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM)
+                : MediaType.APPLICATION_OCTET_STREAM;
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(hash)
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(mediaType);
+        if (fileName != null) {
+            response.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(fileName, StandardCharsets.UTF_8)
+                    .build()
+                    .toString());
+        }
+        return response.body(new FileSystemResource(path));
+    }
+}
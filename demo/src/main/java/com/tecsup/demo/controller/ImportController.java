@@ -0,0 +1,90 @@
+package com.tecsup.demo.controller;
+
+import com.tecsup.demo.dto.ImportJobDTO;
+import com.tecsup.demo.service.ImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Controlador para importaciones masivas desde archivos CSV
+ */
+@RestController
+@RequestMapping("/api/import")
+@Tag(name = "Importación", description = "Endpoints para importar usuarios, tareas y entregas desde CSV")
+@CrossOrigin(origins = "*")
+public class ImportController {
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Importa usuarios desde un CSV con columnas username, password, email, firstName, lastName, phone y role
+     *
+     * @param file Archivo CSV
+     * @return 202 con el estado del trabajo de importación
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/users", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importar usuarios", description = "Importa usuarios desde un archivo CSV en segundo plano (solo administradores)")
+    public ResponseEntity<ImportJobDTO> importUsers(@RequestParam("file") MultipartFile file) throws IOException {
+        return accepted(importService.submit(ImportService.ImportType.USERS, file));
+    }
+
+    /**
+     * Importa tareas desde un CSV con columnas title, description, publicationDate, dueDate, status y maxGrade
+     *
+     * @param file Archivo CSV
+     * @return 202 con el estado del trabajo de importación
+     */
+    @PreAuthorize("hasRole('PROFESSOR')")
+    @PostMapping(value = "/tasks", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importar tareas", description = "Importa tareas desde un archivo CSV en segundo plano (solo profesores)")
+    public ResponseEntity<ImportJobDTO> importTasks(@RequestParam("file") MultipartFile file) throws IOException {
+        return accepted(importService.submit(ImportService.ImportType.TASKS, file));
+    }
+
+    /**
+     * Importa entregas desde un CSV con columnas userId, taskId, submissionDate, status, grade y comments
+     *
+     * @param file Archivo CSV
+     * @return 202 con el estado del trabajo de importación
+     */
+    @PreAuthorize("hasRole('PROFESSOR')")
+    @PostMapping(value = "/submissions", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importar entregas", description = "Importa entregas desde un archivo CSV en segundo plano (solo profesores)")
+    public ResponseEntity<ImportJobDTO> importSubmissions(@RequestParam("file") MultipartFile file) throws IOException {
+        return accepted(importService.submit(ImportService.ImportType.SUBMISSIONS, file));
+    }
+
+    /**
+     * Obtiene el estado y el progreso de una importación
+     *
+     * @param id ID del trabajo
+     * @return Estado del trabajo o 404 si no existe o ya expiró
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'PROFESSOR')")
+    @GetMapping("/jobs/{id}")
+    @Operation(summary = "Estado de importación", description = "Obtiene el progreso y los errores de una importación")
+    public ResponseEntity<ImportJobDTO> getJob(@PathVariable String id) {
+        return importService.findJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private static ResponseEntity<ImportJobDTO> accepted(ImportJobDTO job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/import/jobs/" + job.getId()))
+                .body(job);
+    }
+}
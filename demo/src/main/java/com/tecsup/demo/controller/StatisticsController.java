@@ -1,17 +1,32 @@
 package com.tecsup.demo.controller;
 
-import com.tecsup.demo.entity.Task;
-import com.tecsup.demo.entity.User;
-import com.tecsup.demo.service.SubmissionService;
+import com.tecsup.demo.dto.GradeDistributionDTO;
+import com.tecsup.demo.dto.StatisticsSnapshot;
+import com.tecsup.demo.dto.StudentRankingDTO;
+import com.tecsup.demo.entity.Submission;
+import com.tecsup.demo.entity.SubmissionActivity;
+import com.tecsup.demo.service.GradeDistributionService;
+import com.tecsup.demo.service.GradebookExportService;
+import com.tecsup.demo.service.RankingService;
+import com.tecsup.demo.service.StatisticsService;
+import com.tecsup.demo.service.StatisticsSnapshotService;
+import com.tecsup.demo.service.SubmissionActivityService;
 import com.tecsup.demo.service.TaskService;
 import com.tecsup.demo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -24,14 +39,31 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class StatisticsController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SNAPSHOT_GENERATED_AT_HEADER = "X-Snapshot-Generated-At";
+    private static final String SNAPSHOT_MAX_STALENESS_HEADER = "X-Snapshot-Max-Staleness";
+
     private final UserService userService;
     private final TaskService taskService;
-    private final SubmissionService submissionService;
+    private final StatisticsService statisticsService;
+    private final RankingService rankingService;
+    private final StatisticsSnapshotService snapshotService;
+    private final GradeDistributionService distributionService;
+    private final SubmissionActivityService activityService;
+    private final GradebookExportService exportService;
 
-    public StatisticsController(UserService userService, TaskService taskService, SubmissionService submissionService) {
+    public StatisticsController(UserService userService, TaskService taskService,
+                                StatisticsService statisticsService, RankingService rankingService,
+                                StatisticsSnapshotService snapshotService, GradeDistributionService distributionService,
+                                SubmissionActivityService activityService, GradebookExportService exportService) {
         this.userService = userService;
         this.taskService = taskService;
-        this.submissionService = submissionService;
+        this.statisticsService = statisticsService;
+        this.rankingService = rankingService;
+        this.snapshotService = snapshotService;
+        this.distributionService = distributionService;
+        this.activityService = activityService;
+        this.exportService = exportService;
     }
 
     /**
@@ -43,28 +75,8 @@ public class StatisticsController {
     @GetMapping("/general")
     @Operation(summary = "Estadísticas generales", description = "Obtiene estadísticas generales del sistema")
     public ResponseEntity<Map<String, Object>> getGeneralStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-        
-        // Estadísticas de usuarios
-        List<User> allUsers = userService.listAll();
-        stats.put("totalUsers", allUsers.size());
-        stats.put("students", userService.findByRole(User.UserRole.STUDENT).size());
-        stats.put("professors", userService.findByRole(User.UserRole.PROFESSOR).size());
-        stats.put("admins", userService.findByRole(User.UserRole.ADMIN).size());
-        
-        // Estadísticas de tareas
-        List<Task> allTasks = taskService.listAll();
-        stats.put("totalTasks", allTasks.size());
-        stats.put("activeTasks", taskService.findActiveTasks().size());
-        stats.put("archivedTasks", taskService.findByStatus(Task.TaskStatus.ARCHIVED).size());
-        
-        // Estadísticas de entregas
-        stats.put("totalSubmissions", submissionService.listAll().size());
-        stats.put("gradedSubmissions", submissionService.findGradedSubmissions().size());
-        stats.put("pendingSubmissions", submissionService.findPendingSubmissions().size());
-        stats.put("lateSubmissions", submissionService.findLateSubmissions().size());
-        
-        return ResponseEntity.ok(stats);
+        StatisticsSnapshot<Map<String, Object>> snapshot = snapshotService.getGeneralStatistics();
+        return snapshotResponse(snapshot).body(snapshot.getData());
     }
 
     /**
@@ -78,29 +90,7 @@ public class StatisticsController {
     @Operation(summary = "Estadísticas de usuario", description = "Obtiene estadísticas de un usuario específico")
     public ResponseEntity<Map<String, Object>> getUserStatistics(@PathVariable Long userId) {
         return userService.findById(userId)
-                .map(user -> {
-                    Map<String, Object> stats = new HashMap<>();
-                    
-                    stats.put("userId", user.getId());
-                    stats.put("username", user.getUsername());
-                    stats.put("fullName", user.getFirstName() + " " + user.getLastName());
-                    stats.put("role", user.getRole().getDisplayName());
-                    
-                    // Estadísticas de entregas del usuario
-                    List<com.tecsup.demo.entity.Submission> userSubmissions = submissionService.findByUser(user);
-                    stats.put("totalSubmissions", userSubmissions.size());
-                    
-                    // Calcular promedio de calificaciones
-                    Double averageGrade = submissionService.calculateAverageGradeForUser(user);
-                    stats.put("averageGrade", averageGrade != null ? averageGrade : 0.0);
-                    
-                    // Contar entregas por estado
-                    stats.put("gradedSubmissions", submissionService.findByStatus(com.tecsup.demo.entity.Submission.SubmissionStatus.GRADED).size());
-                    stats.put("pendingSubmissions", submissionService.findByStatus(com.tecsup.demo.entity.Submission.SubmissionStatus.PENDING).size());
-                    stats.put("lateSubmissions", submissionService.findByStatus(com.tecsup.demo.entity.Submission.SubmissionStatus.LATE).size());
-                    
-                    return ResponseEntity.ok(stats);
-                })
+                .map(user -> ResponseEntity.ok(statisticsService.getUserStatistics(user)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -115,59 +105,160 @@ public class StatisticsController {
     @Operation(summary = "Estadísticas de tarea", description = "Obtiene estadísticas de una tarea específica")
     public ResponseEntity<Map<String, Object>> getTaskStatistics(@PathVariable Long taskId) {
         return taskService.findById(taskId)
-                .map(task -> {
-                    Map<String, Object> stats = new HashMap<>();
-                    
-                    stats.put("taskId", task.getId());
-                    stats.put("taskTitle", task.getTitle());
-                    stats.put("taskStatus", task.getStatus().getDisplayName());
-                    stats.put("maxGrade", task.getMaxGrade());
-                    stats.put("dueDate", task.getDueDate());
-                    
-                    // Estadísticas de entregas de la tarea
-                    List<com.tecsup.demo.entity.Submission> taskSubmissions = submissionService.findByTask(task);
-                    stats.put("totalSubmissions", taskSubmissions.size());
-                    
-                    // Calcular promedio de calificaciones
-                    Double averageGrade = submissionService.calculateAverageGradeForTask(task);
-                    stats.put("averageGrade", averageGrade != null ? averageGrade : 0.0);
-                    
-                    // Contar entregas por estado
-                    stats.put("gradedSubmissions", submissionService.findByStatus(com.tecsup.demo.entity.Submission.SubmissionStatus.GRADED).size());
-                    stats.put("pendingSubmissions", submissionService.findByStatus(com.tecsup.demo.entity.Submission.SubmissionStatus.PENDING).size());
-                    stats.put("lateSubmissions", submissionService.findByStatus(com.tecsup.demo.entity.Submission.SubmissionStatus.LATE).size());
-                    
-                    return ResponseEntity.ok(stats);
-                })
+                .map(task -> ResponseEntity.ok(statisticsService.getTaskStatistics(task)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
      * Obtiene el ranking de estudiantes por promedio de calificaciones
      * 
-     * @return Ranking de estudiantes
+     * @param limit Cantidad máxima de estudiantes a devolver (top-K)
+     * @param cursor Cursor de la página anterior (cabecera X-Next-Cursor)
+     * @return Ranking de estudiantes con rango denso
      */
     @PreAuthorize("hasAnyRole('PROFESSOR', 'ADMIN')")
     @GetMapping("/ranking/students")
-    @Operation(summary = "Ranking de estudiantes", description = "Obtiene el ranking de estudiantes por promedio de calificaciones")
-    public ResponseEntity<List<Map<String, Object>>> getStudentRanking() {
-        List<User> students = userService.findByRole(User.UserRole.STUDENT);
-        
-        List<Map<String, Object>> ranking = students.stream()
-                .map(student -> {
-                    Map<String, Object> studentStats = new HashMap<>();
-                    studentStats.put("userId", student.getId());
-                    studentStats.put("username", student.getUsername());
-                    studentStats.put("fullName", student.getFirstName() + " " + student.getLastName());
-                    
-                    Double averageGrade = submissionService.calculateAverageGradeForUser(student);
-                    studentStats.put("averageGrade", averageGrade != null ? averageGrade : 0.0);
-                    
-                    return studentStats;
-                })
-                .sorted((a, b) -> Double.compare((Double) b.get("averageGrade"), (Double) a.get("averageGrade")))
-                .toList();
-        
-        return ResponseEntity.ok(ranking);
+    @Operation(summary = "Ranking de estudiantes", description = "Obtiene el ranking de estudiantes por promedio de calificaciones, paginado por cursor")
+    public ResponseEntity<List<StudentRankingDTO>> getStudentRanking(@RequestParam(required = false) Integer limit,
+                                                                     @RequestParam(required = false) String cursor) {
+        RankingService.RankingPage page;
+        ResponseEntity.BodyBuilder response;
+        if (cursor == null || cursor.isBlank()) {
+            // La primera página se sirve desde la instantánea precalculada
+            StatisticsSnapshot<RankingService.RankingPage> snapshot = snapshotService.getStudentRanking(limit);
+            page = snapshot.getData();
+            response = snapshotResponse(snapshot);
+        } else {
+            page = rankingService.getStudentRanking(limit, cursor);
+            response = ResponseEntity.ok();
+        }
+
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    /**
+     * Obtiene la distribución de notas de una tarea
+     * 
+     * @param taskId ID de la tarea
+     * @return Histograma, mediana y percentil 90 de las notas de la tarea
+     */
+    @PreAuthorize("hasAnyRole('PROFESSOR', 'ADMIN')")
+    @GetMapping("/distribution/task/{taskId}")
+    @Operation(summary = "Distribución de notas de tarea", description = "Obtiene el histograma, la mediana y el percentil 90 de las notas de una tarea")
+    public ResponseEntity<GradeDistributionDTO> getTaskDistribution(@PathVariable Long taskId) {
+        if (taskService.findById(taskId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(distributionService.getTaskDistribution(taskId));
+    }
+
+    /**
+     * Obtiene la distribución de notas de un estudiante
+     * 
+     * @param userId ID del estudiante
+     * @return Histograma, mediana y percentil 90 de las notas del estudiante
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/distribution/user/{userId}")
+    @Operation(summary = "Distribución de notas de estudiante", description = "Obtiene el histograma, la mediana y el percentil 90 de las notas de un estudiante")
+    public ResponseEntity<GradeDistributionDTO> getUserDistribution(@PathVariable Long userId) {
+        if (userService.findById(userId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(distributionService.getUserDistribution(userId));
+    }
+
+    /**
+     * Obtiene la distribución combinada de notas de varias tareas
+     * 
+     * @param taskIds IDs de las tareas de la cohorte; si se omite se combinan todas las tareas
+     * @return Histograma, mediana y percentil 90 combinados
+     */
+    @PreAuthorize("hasAnyRole('PROFESSOR', 'ADMIN')")
+    @GetMapping("/distribution/tasks")
+    @Operation(summary = "Distribución de notas combinada", description = "Combina la distribución de notas de las tareas indicadas o de todas las tareas")
+    public ResponseEntity<GradeDistributionDTO> getTasksDistribution(@RequestParam(required = false) List<Long> taskIds) {
+        return ResponseEntity.ok(distributionService.getTasksDistribution(taskIds));
+    }
+
+    /**
+     * Obtiene la cantidad de entregas por hora o por día en un rango de fechas
+     * 
+     * @param from Inicio del rango
+     * @param to Fin del rango
+     * @param granularity Granularidad de los intervalos (HOUR o DAY)
+     * @return Entregas por intervalo, incluyendo los intervalos sin entregas
+     */
+    @PreAuthorize("hasAnyRole('PROFESSOR', 'ADMIN')")
+    @GetMapping("/activity")
+    @Operation(summary = "Actividad de entregas", description = "Obtiene la cantidad de entregas por hora o por día en un rango de fechas")
+    public ResponseEntity<Map<String, Object>> getActivity(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "DAY") SubmissionActivity.Granularity granularity) {
+        return ResponseEntity.ok(activityService.getActivity(from, to, granularity));
+    }
+
+    /**
+     * Obtiene estadísticas de una cohorte de entregas desde el almacén columnar en memoria
+     * 
+     * @param taskId Tarea de la cohorte
+     * @param userIds Estudiantes de la cohorte
+     * @param statuses Estados de entrega aceptados (por ejemplo LATE)
+     * @param from Inicio del rango de fechas de entrega
+     * @param to Fin del rango de fechas de entrega
+     * @return Estadísticas de la cohorte o 503 si el almacén columnar no está habilitado
+     */
+    @PreAuthorize("hasAnyRole('PROFESSOR', 'ADMIN')")
+    @GetMapping("/cohort")
+    @Operation(summary = "Estadísticas de cohorte", description = "Filtra entregas por tarea, estudiantes, estado y fechas y agrega sus notas (requiere el almacén columnar)")
+    public ResponseEntity<Map<String, Object>> getCohortStatistics(
+            @RequestParam(required = false) Long taskId,
+            @RequestParam(required = false) List<Long> userIds,
+            @RequestParam(required = false) List<Submission.SubmissionStatus> statuses,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return statisticsService.getCohortStatistics(taskId, userIds, statuses, from, to)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    /**
+     * Exporta la libreta de notas (estudiantes × tareas) en CSV o NDJSON.
+     * La respuesta se escribe a medida que se leen las filas, sin cargar la libreta completa en memoria;
+     * solo esta respuesta usa el timeout largo de exportación, no todas las respuestas asíncronas.
+     * 
+     * @param format Formato de exportación (csv o ndjson)
+     * @param webRequest Solicitud actual, para fijar el timeout de la respuesta asíncrona
+     * @return Respuesta que transmite la libreta de notas
+     */
+    @PreAuthorize("hasAnyRole('PROFESSOR', 'ADMIN')")
+    @GetMapping("/export")
+    @Operation(summary = "Exportar libreta de notas", description = "Transmite las notas de todos los estudiantes en todas las tareas en CSV o NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportGradebook(@RequestParam(defaultValue = "csv") String format,
+                                                                 NativeWebRequest webRequest) {
+        GradebookExportService.ExportFormat exportFormat = GradebookExportService.ExportFormat.fromParameter(format);
+        WebAsyncUtils.getAsyncManager(webRequest).getAsyncWebRequest().setTimeout(exportService.getTimeoutMillis());
+        StreamingResponseBody body = output -> exportService.export(exportFormat, output);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("libreta-de-notas." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * Construye una respuesta que informa la antigüedad de la instantánea servida
+     */
+    private ResponseEntity.BodyBuilder snapshotResponse(StatisticsSnapshot<?> snapshot) {
+        return ResponseEntity.ok()
+                .header(SNAPSHOT_GENERATED_AT_HEADER, snapshot.getGeneratedAt().toString())
+                .header(SNAPSHOT_MAX_STALENESS_HEADER, String.valueOf(snapshotService.getMaxStaleness().toSeconds()));
     }
 } 
\ No newline at end of file
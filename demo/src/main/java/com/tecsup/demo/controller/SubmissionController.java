@@ -1,21 +1,43 @@
 package com.tecsup.demo.controller;
 
+import com.tecsup.demo.dto.CursorPage;
+import com.tecsup.demo.dto.GradeBatchItemDTO;
+import com.tecsup.demo.dto.GradeBatchResultDTO;
+import com.tecsup.demo.dto.SubmissionFileDTO;
 import com.tecsup.demo.dto.SubmissionDTO;
+import com.tecsup.demo.dto.SubmissionView;
 import com.tecsup.demo.entity.Submission;
 import com.tecsup.demo.entity.Task;
 import com.tecsup.demo.entity.User;
+import com.tecsup.demo.service.FileStorageService;
+import com.tecsup.demo.service.SubmissionFeedHub;
+import com.tecsup.demo.service.SubmissionFileService;
 import com.tecsup.demo.service.SubmissionService;
 import com.tecsup.demo.service.TaskService;
 import com.tecsup.demo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Controlador para operaciones relacionadas con entregas
@@ -26,27 +48,42 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class SubmissionController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final SubmissionService submissionService;
     private final UserService userService;
     private final TaskService taskService;
+    private final FileStorageService fileStorageService;
+    private final SubmissionFileService submissionFileService;
+    private final SubmissionFeedHub submissionFeedHub;
 
-    public SubmissionController(SubmissionService submissionService, UserService userService, TaskService taskService) {
+    public SubmissionController(SubmissionService submissionService, UserService userService, TaskService taskService,
+                                FileStorageService fileStorageService, SubmissionFileService submissionFileService,
+                                SubmissionFeedHub submissionFeedHub) {
         this.submissionService = submissionService;
         this.userService = userService;
         this.taskService = taskService;
+        this.fileStorageService = fileStorageService;
+        this.submissionFileService = submissionFileService;
+        this.submissionFeedHub = submissionFeedHub;
     }
 
     /**
-     * Obtiene todas las entregas
+     * Obtiene las entregas (más recientes primero), paginadas por cursor
      * 
-     * @return Lista de todas las entregas
+     * @param limit Tamaño de la página
+     * @param cursor Cursor de la página anterior (cabecera X-Next-Cursor)
+     * @return Página de entregas
      */
     @PreAuthorize("isAuthenticated()")
     @GetMapping
-    @Operation(summary = "Listar entregas", description = "Obtiene todas las entregas")
-    public ResponseEntity<List<Submission>> listAll() {
-        List<Submission> submissions = submissionService.listAll();
-        return ResponseEntity.ok(submissions);
+    @Operation(summary = "Listar entregas", description = "Obtiene las entregas más recientes primero, paginadas por cursor")
+    public ResponseEntity<List<SubmissionView>> listAll(@RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String cursor) {
+        return pageResponse(submissionService.findPage(limit, cursor));
     }
 
     /**
@@ -58,8 +95,8 @@ public class SubmissionController {
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/{id}")
     @Operation(summary = "Obtener entrega", description = "Obtiene una entrega específica por su ID")
-    public ResponseEntity<Submission> getById(@PathVariable Long id) {
-        return submissionService.findById(id)
+    public ResponseEntity<SubmissionView> getById(@PathVariable Long id) {
+        return submissionService.findViewById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -73,10 +110,33 @@ public class SubmissionController {
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/task/{taskId}")
     @Operation(summary = "Entregas por tarea", description = "Obtiene todas las entregas de una tarea específica")
-    public ResponseEntity<List<Submission>> getByTask(@PathVariable Long taskId) {
-        return taskService.findById(taskId)
-                .map(task -> ResponseEntity.ok(submissionService.findByTask(task)))
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<List<SubmissionView>> getByTask(@PathVariable Long taskId) {
+        List<SubmissionView> submissions = submissionService.findViewsByTask(taskId);
+        // Solo una lista vacía requiere consultar si la tarea existe
+        if (submissions.isEmpty() && taskService.findById(taskId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(submissions);
+    }
+
+    /**
+     * Abre un canal de Server-Sent Events con los cambios de las entregas de una tarea.
+     * Cada evento "submission" lleva solo el cambio (creada, actualizada, calificada o eliminada);
+     * un evento "overflow" indica que se perdieron eventos y conviene recargar la lista
+     * 
+     * @param taskId ID de la tarea
+     * @return Canal de eventos, 404 si la tarea no existe o 503 si el nodo no admite más suscriptores
+     */
+    @PreAuthorize("hasAnyRole('PROFESSOR', 'ADMIN')")
+    @GetMapping(value = "/task/{taskId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Eventos de entregas por tarea", description = "Transmite por SSE los cambios de las entregas de una tarea a medida que se confirman")
+    public ResponseEntity<SseEmitter> streamTaskEvents(@PathVariable Long taskId) {
+        if (taskService.findById(taskId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(submissionFeedHub.subscribe(taskId));
     }
 
     /**
@@ -88,51 +148,60 @@ public class SubmissionController {
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/user/{userId}")
     @Operation(summary = "Entregas por usuario", description = "Obtiene todas las entregas de un usuario específico")
-    public ResponseEntity<List<Submission>> getByUser(@PathVariable Long userId) {
-        return userService.findById(userId)
-                .map(user -> ResponseEntity.ok(submissionService.findByUser(user)))
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<List<SubmissionView>> getByUser(@PathVariable Long userId) {
+        List<SubmissionView> submissions = submissionService.findViewsByUser(userId);
+        // Solo una lista vacía requiere consultar si el usuario existe
+        if (submissions.isEmpty() && userService.findById(userId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(submissions);
     }
 
     /**
-     * Crea una nueva entrega
+     * Crea la entrega del estudiante autenticado o actualiza la que ya tiene para la misma tarea.
+     * Un reintento con la misma cabecera Idempotency-Key devuelve el resultado original
      * 
-     * @param dto Datos de la entrega a crear
-     * @return Entrega creada
+     * @param dto Datos de la entrega
+     * @param user Estudiante autenticado
+     * @param idempotencyKey Clave de idempotencia opcional
+     * @return 201 si se creó, 200 si se actualizó o 409 si la entrega ya fue calificada
      */
     @PreAuthorize("hasRole('STUDENT')")
     @PostMapping
-    @Operation(summary = "Crear entrega", description = "Crea una nueva entrega (solo estudiantes)")
-    public ResponseEntity<?> create(@Valid @RequestBody SubmissionDTO dto) {
-        try {
-            User user = userService.findById(dto.getUserId()).orElse(null);
-            Task task = taskService.findById(dto.getTaskId()).orElse(null);
-
-            if (user == null || task == null) {
-                return ResponseEntity.badRequest().body("Usuario o Tarea no encontrada");
-            }
+    @Operation(summary = "Crear entrega", description = "Crea o actualiza la entrega del estudiante autenticado para la tarea (solo estudiantes); admite la cabecera Idempotency-Key")
+    public ResponseEntity<?> create(@Valid @RequestBody SubmissionDTO dto,
+                                    @AuthenticationPrincipal User user,
+                                    @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (dto.getUserId() != null && !dto.getUserId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("No puedes registrar entregas de otro estudiante");
+        }
+        if (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body("La clave de idempotencia no debe superar los " + MAX_IDEMPOTENCY_KEY_LENGTH + " caracteres");
+        }
 
-            // Verificar si ya existe una entrega para este usuario y tarea
-            if (submissionService.existsByUserAndTask(user, task)) {
-                return ResponseEntity.badRequest().body("Ya existe una entrega para esta tarea");
-            }
+        Submission submission = new Submission();
+        submission.setSubmissionDate(dto.getSubmissionDate());
+        submission.setStatus(dto.getStatus());
+        submission.setGrade(dto.getGrade());
+        submission.setComments(dto.getComments());
+        submission.setFileUrl(dto.getFileUrl());
+        submission.setFileName(dto.getFileName());
+        submission.setFileSize(dto.getFileSize());
+        submission.setUser(user);
+        submission.setTask(taskService.getReference(dto.getTaskId()));
 
-            Submission submission = new Submission();
-            submission.setSubmissionDate(dto.getSubmissionDate());
-            submission.setStatus(dto.getStatus());
-            submission.setGrade(dto.getGrade());
-            submission.setComments(dto.getComments());
-            submission.setFileUrl(dto.getFileUrl());
-            submission.setFileName(dto.getFileName());
-            submission.setFileSize(dto.getFileSize());
-            submission.setUser(user);
-            submission.setTask(task);
+        SubmissionService.UpsertResult result = submissionService.upsert(submission, idempotencyKey);
+        if (result.getOutcome() == SubmissionService.UpsertOutcome.ALREADY_GRADED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("La entrega ya fue calificada y no se puede modificar");
+        }
 
-            Submission savedSubmission = submissionService.save(submission);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedSubmission);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Error al crear la entrega: " + e.getMessage());
+        ResponseEntity.BodyBuilder response = result.getOutcome() == SubmissionService.UpsertOutcome.CREATED
+                ? ResponseEntity.status(HttpStatus.CREATED)
+                : ResponseEntity.ok();
+        if (result.isReplayed()) {
+            response.header(IDEMPOTENT_REPLAYED_HEADER, "true");
         }
+        return response.body(result.getSubmission());
     }
 
     /**
@@ -149,7 +218,9 @@ public class SubmissionController {
         return submissionService.findById(id)
                 .map(existing -> {
                     try {
-                        User user = userService.findById(dto.getUserId()).orElse(null);
+                        User user = dto.getUserId() != null
+                                ? userService.findById(dto.getUserId()).orElse(null)
+                                : existing.getUser();
                         Task task = taskService.findById(dto.getTaskId()).orElse(null);
 
                         if (user == null || task == null) {
@@ -166,7 +237,7 @@ public class SubmissionController {
                         existing.setUser(user);
                         existing.setTask(task);
 
-                        return ResponseEntity.ok(submissionService.save(existing));
+                        return ResponseEntity.ok(SubmissionView.from(submissionService.save(existing)));
                     } catch (Exception e) {
                         return ResponseEntity.badRequest().body("Error al actualizar la entrega: " + e.getMessage());
                     }
@@ -191,17 +262,164 @@ public class SubmissionController {
         return ResponseEntity.notFound().build();
     }
 
+    /**
+     * Adjunta un archivo a una entrega propia (multipart, parte "file")
+     * 
+     * @param id ID de la entrega
+     * @param file Archivo a adjuntar
+     * @param user Estudiante autenticado
+     * @return Datos del archivo adjuntado, 403 si la entrega es de otro estudiante o 404 si no existe
+     */
+    @PreAuthorize("hasRole('STUDENT')")
+    @PostMapping(value = "/{id}/file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Subir archivo", description = "Adjunta un archivo a una entrega propia; el contenido se guarda una sola vez por hash")
+    public ResponseEntity<?> uploadFile(@PathVariable Long id,
+                                        @RequestParam("file") MultipartFile file,
+                                        @AuthenticationPrincipal User user) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return attachFile(id, user, file.getOriginalFilename(), content);
+        }
+    }
+
+    /**
+     * Adjunta un archivo a una entrega propia enviando el contenido directamente en el cuerpo
+     * 
+     * @param id ID de la entrega
+     * @param fileName Nombre original del archivo
+     * @param content Cuerpo de la petición con el contenido del archivo
+     * @param user Estudiante autenticado
+     * @return Datos del archivo adjuntado, 403 si la entrega es de otro estudiante o 404 si no existe
+     */
+    @PreAuthorize("hasRole('STUDENT')")
+    @PostMapping(value = "/{id}/file", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Subir archivo (cuerpo binario)", description = "Adjunta a una entrega propia el archivo enviado como application/octet-stream")
+    public ResponseEntity<?> uploadRawFile(@PathVariable Long id,
+                                           @RequestParam String fileName,
+                                           InputStream content,
+                                           @AuthenticationPrincipal User user) throws IOException {
+        return attachFile(id, user, fileName, content);
+    }
+
+    /**
+     * Descarga el archivo de una entrega con su nombre original. Soporta Range e If-None-Match;
+     * si la entrega tiene una URL externa, redirige a ella
+     * 
+     * @param id ID de la entrega
+     * @param user Usuario autenticado
+     * @return Archivo, 206 para rangos, 304 si no cambió, 302 para URLs externas, 403 o 404
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{id}/file")
+    @Operation(summary = "Descargar archivo", description = "Descarga el archivo de una entrega; los estudiantes solo acceden a sus propias entregas")
+    public ResponseEntity<Resource> downloadFile(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        Optional<Submission> found = submissionService.findById(id);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Submission submission = found.get();
+        if (user.getRole() == User.UserRole.STUDENT && !submission.getUser().getId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        String fileUrl = submission.getFileUrl();
+        Optional<String> hash = submissionFileService.hashOf(fileUrl);
+        if (hash.isEmpty()) {
+            if (fileUrl != null && (fileUrl.startsWith("http://") || fileUrl.startsWith("https://"))) {
+                return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(fileUrl)).build();
+            }
+            return ResponseEntity.notFound().build();
+        }
+        return submissionFileService.find(hash.get())
+                .map(path -> FileController.fileResponse(path, hash.get(), submission.getFileName()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Descarga en un ZIP generado al vuelo los archivos de todas las entregas de una tarea
+     * 
+     * @param taskId ID de la tarea
+     * @param webRequest Solicitud actual, para fijar el timeout de la respuesta asíncrona
+     * @return Respuesta que transmite el ZIP o 404 si la tarea no existe
+     */
+    @PreAuthorize("hasAnyRole('PROFESSOR', 'ADMIN')")
+    @GetMapping("/task/{taskId}/files")
+    @Operation(summary = "Descargar archivos de la tarea", description = "Transmite un ZIP con los archivos de todas las entregas de la tarea")
+    public ResponseEntity<StreamingResponseBody> downloadTaskFiles(@PathVariable Long taskId, NativeWebRequest webRequest) {
+        if (taskService.findById(taskId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        WebAsyncUtils.getAsyncManager(webRequest).getAsyncWebRequest().setTimeout(submissionFileService.getArchiveTimeoutMillis());
+        StreamingResponseBody body = output -> submissionFileService.writeTaskArchive(taskId, output);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("tarea-" + taskId + "-entregas.zip")
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * Califica varias entregas en una sola transacción
+     * 
+     * @param items Lista de calificaciones (ID de entrega, nota y comentarios)
+     * @return Resultado de cada elemento en el mismo orden recibido
+     */
+    @PreAuthorize("hasRole('PROFESSOR')")
+    @PostMapping("/grades:batch")
+    @Operation(summary = "Calificar en lote", description = "Aplica varias calificaciones en una sola transacción y reporta el resultado de cada una (solo profesores)")
+    public ResponseEntity<List<GradeBatchResultDTO>> gradeBatch(@RequestBody List<GradeBatchItemDTO> items) {
+        return ResponseEntity.ok(submissionService.gradeBatch(items));
+    }
+
     /**
      * Obtiene entregas por estado
      * 
      * @param status Estado de las entregas
-     * @return Lista de entregas con el estado especificado
+     * @param limit Tamaño de la página
+     * @param cursor Cursor de la página anterior (cabecera X-Next-Cursor)
+     * @return Página de entregas con el estado especificado
      */
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/status/{status}")
     @Operation(summary = "Entregas por estado", description = "Obtiene entregas filtradas por estado")
-    public ResponseEntity<List<Submission>> getByStatus(@PathVariable Submission.SubmissionStatus status) {
-        List<Submission> submissions = submissionService.findByStatus(status);
-        return ResponseEntity.ok(submissions);
+    public ResponseEntity<List<SubmissionView>> getByStatus(@PathVariable Submission.SubmissionStatus status,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String cursor) {
+        return pageResponse(submissionService.findPageByStatus(status, limit, cursor));
+    }
+
+    /**
+     * Verifica la entrega antes de leer el contenido, lo guarda en el almacén y actualiza fileUrl, fileName y fileSize
+     */
+    private ResponseEntity<?> attachFile(Long id, User user, String fileName, InputStream content) throws IOException {
+        Optional<Submission> submission = submissionService.findById(id);
+        if (submission.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!submission.get().getUser().getId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("La entrega pertenece a otro estudiante");
+        }
+
+        FileStorageService.StoredFile stored = fileStorageService.store(content);
+        Optional<Submission> updated = submissionService.attachFile(id, stored, SubmissionFileService.cleanFileName(fileName));
+        if (updated.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Submission saved = updated.get();
+        return ResponseEntity.ok(new SubmissionFileDTO(saved.getId(), saved.getFileUrl(), saved.getFileName(),
+                saved.getFileSize(), stored.getHash(), stored.isDeduplicated()));
+    }
+
+    /**
+     * Construye la respuesta de una página: los elementos en el cuerpo y el cursor en la cabecera X-Next-Cursor
+     */
+    private static <T> ResponseEntity<List<T>> pageResponse(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 }
@@ -1,5 +1,6 @@
 package com.tecsup.demo.controller;
 
+import com.tecsup.demo.dto.CursorPage;
 import com.tecsup.demo.dto.TaskDTO;
 import com.tecsup.demo.entity.Task;
 import com.tecsup.demo.service.TaskService;
@@ -22,6 +23,8 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class TaskController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final TaskService taskService;
 
     public TaskController(TaskService taskService) {
@@ -29,16 +32,18 @@ public class TaskController {
     }
 
     /**
-     * Obtiene todas las tareas disponibles
+     * Obtiene las tareas ordenadas por fecha de vencimiento, paginadas por cursor
      * 
-     * @return Lista de todas las tareas
+     * @param limit Tamaño de la página
+     * @param cursor Cursor de la página anterior (cabecera X-Next-Cursor)
+     * @return Página de tareas
      */
     @PreAuthorize("isAuthenticated()")
     @GetMapping
-    @Operation(summary = "Listar tareas", description = "Obtiene todas las tareas disponibles")
-    public ResponseEntity<List<Task>> listAll() {
-        List<Task> tasks = taskService.listAll();
-        return ResponseEntity.ok(tasks);
+    @Operation(summary = "Listar tareas", description = "Obtiene las tareas por fecha de vencimiento, paginadas por cursor")
+    public ResponseEntity<List<Task>> listAll(@RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String cursor) {
+        return pageResponse(taskService.findPage(limit, cursor));
     }
 
     /**
@@ -128,13 +133,27 @@ public class TaskController {
      * Obtiene tareas por estado
      * 
      * @param status Estado de las tareas a buscar
-     * @return Lista de tareas con el estado especificado
+     * @param limit Tamaño de la página
+     * @param cursor Cursor de la página anterior (cabecera X-Next-Cursor)
+     * @return Página de tareas con el estado especificado
      */
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/status/{status}")
     @Operation(summary = "Tareas por estado", description = "Obtiene tareas filtradas por estado")
-    public ResponseEntity<List<Task>> getByStatus(@PathVariable Task.TaskStatus status) {
-        List<Task> tasks = taskService.findByStatus(status);
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<Task>> getByStatus(@PathVariable Task.TaskStatus status,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) String cursor) {
+        return pageResponse(taskService.findPageByStatus(status, limit, cursor));
+    }
+
+    /**
+     * Construye la respuesta de una página: los elementos en el cuerpo y el cursor en la cabecera X-Next-Cursor
+     */
+    private static <T> ResponseEntity<List<T>> pageResponse(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 }
@@ -1,7 +1,9 @@
 package com.tecsup.demo.controller;
 
+import com.tecsup.demo.dto.CursorPage;
 import com.tecsup.demo.dto.UserDTO;
 import com.tecsup.demo.entity.User;
+import com.tecsup.demo.service.PasswordHashingService;
 import com.tecsup.demo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -10,10 +12,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controlador para operaciones relacionadas con usuarios
@@ -24,25 +26,29 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class UserController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final UserService userService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
-    public UserController(UserService userService, PasswordEncoder passwordEncoder) {
+    public UserController(UserService userService, PasswordHashingService passwordHashingService) {
         this.userService = userService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
     }
 
     /**
-     * Obtiene todos los usuarios (solo administradores)
+     * Obtiene los usuarios ordenados por apellido y nombre, paginados por cursor (solo administradores)
      * 
-     * @return Lista de todos los usuarios
+     * @param limit Tamaño de la página
+     * @param cursor Cursor de la página anterior (cabecera X-Next-Cursor)
+     * @return Página de usuarios
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping
-    @Operation(summary = "Listar usuarios", description = "Obtiene todos los usuarios (solo administradores)")
-    public ResponseEntity<List<User>> listAll() {
-        List<User> users = userService.listAll();
-        return ResponseEntity.ok(users);
+    @Operation(summary = "Listar usuarios", description = "Obtiene los usuarios por apellido y nombre, paginados por cursor (solo administradores)")
+    public ResponseEntity<List<User>> listAll(@RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String cursor) {
+        return pageResponse(userService.findPage(limit, cursor));
     }
 
     /**
@@ -82,7 +88,7 @@ public class UserController {
 
             User user = new User();
             user.setUsername(dto.getUsername());
-            user.setPassword(passwordEncoder.encode(dto.getPassword()));
+            user.setPassword(passwordHashingService.encode(dto.getPassword()));
             user.setEmail(dto.getEmail());
             user.setFirstName(dto.getFirstName());
             user.setLastName(dto.getLastName());
@@ -91,6 +97,9 @@ public class UserController {
 
             User savedUser = userService.save(user);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
+        } catch (RejectedExecutionException e) {
+            // El pool de contraseñas está saturado; se responde 503 en lugar de un error de validación
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -125,7 +134,7 @@ public class UserController {
 
                     user.setUsername(dto.getUsername());
                     if (dto.getPassword() != null && !dto.getPassword().isEmpty()) {
-                        user.setPassword(passwordEncoder.encode(dto.getPassword()));
+                        user.setPassword(passwordHashingService.encode(dto.getPassword()));
                     }
                     user.setEmail(dto.getEmail());
                     user.setFirstName(dto.getFirstName());
@@ -172,13 +181,27 @@ public class UserController {
      * Busca usuarios por rol
      * 
      * @param role Rol de los usuarios a buscar
-     * @return Lista de usuarios con el rol especificado
+     * @param limit Tamaño de la página
+     * @param cursor Cursor de la página anterior (cabecera X-Next-Cursor)
+     * @return Página de usuarios con el rol especificado
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/role/{role}")
     @Operation(summary = "Usuarios por rol", description = "Obtiene usuarios filtrados por rol (solo administradores)")
-    public ResponseEntity<List<User>> getByRole(@PathVariable User.UserRole role) {
-        List<User> users = userService.findByRole(role);
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<User>> getByRole(@PathVariable User.UserRole role,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String cursor) {
+        return pageResponse(userService.findPageByRole(role, limit, cursor));
+    }
+
+    /**
+     * Construye la respuesta de una página: los elementos en el cuerpo y el cursor en la cabecera X-Next-Cursor
+     */
+    private static <T> ResponseEntity<List<T>> pageResponse(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 }
@@ -0,0 +1,20 @@
+package com.tecsup.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados paginada por cursor, junto con el cursor opaco de la siguiente página
+ * (null si no hay más resultados)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor;
+}
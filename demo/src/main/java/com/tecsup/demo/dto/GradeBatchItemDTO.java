@@ -0,0 +1,27 @@
+package com.tecsup.demo.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * DTO con la calificación de una entrega dentro de una calificación masiva
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeBatchItemDTO {
+
+    @NotNull(message = "El ID de la entrega es obligatorio")
+    @Min(value = 1, message = "El ID de la entrega debe ser válido")
+    private Long submissionId;
+
+    @NotNull(message = "La nota es obligatoria")
+    @DecimalMin(value = "0.0", message = "La nota debe ser mayor o igual a 0")
+    @DecimalMax(value = "20.0", message = "La nota no puede superar 20")
+    private Double grade;
+
+    @Size(max = 1000, message = "Los comentarios no deben superar los 1000 caracteres")
+    private String comments;
+}
@@ -0,0 +1,27 @@
+package com.tecsup.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * DTO con el resultado de calificar una entrega dentro de una calificación masiva
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeBatchResultDTO {
+
+    private Long submissionId;
+    private Outcome outcome;
+    private String message;
+
+    /**
+     * Resultado posible de cada elemento
+     */
+    public enum Outcome {
+        UPDATED,
+        NOT_FOUND,
+        INVALID
+    }
+}
@@ -0,0 +1,26 @@
+package com.tecsup.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * DTO con la distribución de notas de una tarea, un estudiante o un conjunto de tareas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeDistributionDTO {
+
+    private long gradeCount;
+    private Double averageGrade;
+    private Double lowestGrade;
+    private Double highestGrade;
+    private Double median;
+    private Double p90;
+
+    /**
+     * Cantidad de notas por cubeta: la posición i cuenta las notas en [i, i+1) y la posición 20 las notas de 20
+     */
+    private int[] histogram;
+}
@@ -0,0 +1,54 @@
+package com.tecsup.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con el estado y el progreso de una importación masiva desde CSV
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDTO {
+
+    private String id;
+    private String type;
+    private Status status;
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    /**
+     * Primeros errores por fila (la lista está acotada; failedRows tiene el total)
+     */
+    private List<RowError> errors;
+
+    /**
+     * Estados de una importación
+     */
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    /**
+     * Error de una fila del archivo
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
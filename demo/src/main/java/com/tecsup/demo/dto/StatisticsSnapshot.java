@@ -0,0 +1,19 @@
+package com.tecsup.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Instantánea de estadísticas precalculada junto con el momento en que se generó
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatisticsSnapshot<T> {
+
+    private T data;
+    private Instant generatedAt;
+}
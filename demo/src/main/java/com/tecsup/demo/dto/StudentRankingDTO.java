@@ -0,0 +1,20 @@
+package com.tecsup.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * DTO para una fila del ranking de estudiantes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentRankingDTO {
+
+    private int rank;
+    private Long userId;
+    private String username;
+    private String fullName;
+    private double averageGrade;
+}
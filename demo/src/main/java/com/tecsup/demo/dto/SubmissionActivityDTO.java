@@ -0,0 +1,19 @@
+package com.tecsup.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con la cantidad de entregas de un intervalo de tiempo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionActivityDTO {
+
+    private LocalDateTime bucketStart;
+    private long submissionCount;
+}
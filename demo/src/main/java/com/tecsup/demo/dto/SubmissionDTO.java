@@ -39,7 +39,9 @@ public class SubmissionDTO {
     @Min(value = 0, message = "El tamaño del archivo debe ser mayor o igual a 0")
     private Long fileSize;
 
-    @NotNull(message = "El ID del usuario es obligatorio")
+    /**
+     * Opcional: al crear se usa el estudiante autenticado; si se envía debe coincidir con él
+     */
     @Min(value = 1, message = "El ID del usuario debe ser válido")
     private Long userId;
 
@@ -0,0 +1,37 @@
+package com.tecsup.demo.dto;
+
+import com.tecsup.demo.entity.Submission;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un cambio de entrega enviado por el canal de eventos de una tarea.
+ * Solo lleva los campos que cambian; el cliente obtiene la vista completa de una entrega nueva
+ * con GET /api/submissions/{id}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionFeedEventDTO {
+
+    private Type type;
+    private Long submissionId;
+    private Long taskId;
+    private Long userId;
+    private Submission.SubmissionStatus status;
+    private Double grade;
+    private LocalDateTime submissionDate;
+
+    /**
+     * Tipo de cambio
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        GRADED,
+        DELETED
+    }
+}
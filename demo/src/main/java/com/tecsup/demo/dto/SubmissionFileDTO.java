@@ -0,0 +1,29 @@
+package com.tecsup.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * DTO con el archivo adjuntado a una entrega
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionFileDTO {
+
+    private Long submissionId;
+    private String fileUrl;
+    private String fileName;
+    private Long fileSize;
+
+    /**
+     * Hash SHA-256 del contenido
+     */
+    private String sha256;
+
+    /**
+     * true si el mismo contenido ya estaba almacenado
+     */
+    private boolean deduplicated;
+}
@@ -0,0 +1,76 @@
+package com.tecsup.demo.dto;
+
+import com.tecsup.demo.entity.Submission;
+import com.tecsup.demo.entity.Task;
+import com.tecsup.demo.entity.User;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.hibernate.Hibernate;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de lectura de una entrega con un resumen del estudiante y de la tarea.
+ * Las consultas de listado lo construyen directamente en JPQL (SELECT new …) con un JOIN,
+ * de modo que cada listado ejecuta una sola sentencia SQL y nunca se serializan entidades
+ * relacionadas ni datos sensibles del usuario.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionView {
+
+    private Long id;
+    private LocalDateTime submissionDate;
+    private Submission.SubmissionStatus status;
+    private Double grade;
+    private String comments;
+    private String fileUrl;
+    private String fileName;
+    private Long fileSize;
+    private Long userId;
+    private String username;
+    private String userFirstName;
+    private String userLastName;
+    private Long taskId;
+    private String taskTitle;
+    private LocalDateTime taskDueDate;
+    private Double taskMaxGrade;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    /**
+     * Construye la vista a partir de la entidad sin inicializar las relaciones perezosas:
+     * el resumen del estudiante o de la tarea solo se completa si ya están cargados
+     *
+     * @param submission Entrega
+     * @return Vista de la entrega
+     */
+    public static SubmissionView from(Submission submission) {
+        User user = submission.getUser();
+        Task task = submission.getTask();
+        boolean userLoaded = user != null && Hibernate.isInitialized(user);
+        boolean taskLoaded = task != null && Hibernate.isInitialized(task);
+        return new SubmissionView(
+                submission.getId(),
+                submission.getSubmissionDate(),
+                submission.getStatus(),
+                submission.getGrade(),
+                submission.getComments(),
+                submission.getFileUrl(),
+                submission.getFileName(),
+                submission.getFileSize(),
+                user != null ? user.getId() : null,
+                userLoaded ? user.getUsername() : null,
+                userLoaded ? user.getFirstName() : null,
+                userLoaded ? user.getLastName() : null,
+                task != null ? task.getId() : null,
+                taskLoaded ? task.getTitle() : null,
+                taskLoaded ? task.getDueDate() : null,
+                taskLoaded ? task.getMaxGrade() : null,
+                submission.getCreatedAt(),
+                submission.getUpdatedAt()
+        );
+    }
+}
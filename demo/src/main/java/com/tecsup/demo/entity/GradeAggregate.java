@@ -0,0 +1,179 @@
+package com.tecsup.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agregado de calificaciones mantenido de forma incremental por estudiante o por tarea.
+ * Permite obtener promedio, varianza, mínimo, máximo y la distribución de notas
+ * sin recorrer la tabla de entregas.
+ */
+@Entity
+@Table(name = "grade_aggregates", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"scope", "scope_id"}, name = "uk_grade_aggregate_scope")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeAggregate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Scope scope;
+
+    @Column(name = "scope_id", nullable = false)
+    private Long scopeId;
+
+    @Column(name = "grade_count", nullable = false)
+    private long gradeCount;
+
+    @Column(name = "grade_sum", nullable = false)
+    private double gradeSum;
+
+    @Column(name = "grade_sum_squares", nullable = false)
+    private double gradeSumOfSquares;
+
+    @Column(name = "min_grade")
+    private Double minGrade;
+
+    @Column(name = "max_grade")
+    private Double maxGrade;
+
+    /**
+     * Histograma serializado de las notas (ver {@link GradeHistogram})
+     */
+    @Column(name = "grade_histogram", length = GradeHistogram.SERIALIZED_SIZE)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private byte[] gradeHistogram;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public GradeAggregate(Scope scope, Long scopeId) {
+        this.scope = scope;
+        this.scopeId = scopeId;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Incorpora una calificación al agregado
+     * 
+     * @param grade Calificación a agregar
+     */
+    public void add(double grade) {
+        gradeCount++;
+        gradeSum += grade;
+        gradeSumOfSquares += grade * grade;
+        minGrade = minGrade == null ? grade : Math.min(minGrade, grade);
+        maxGrade = maxGrade == null ? grade : Math.max(maxGrade, grade);
+        GradeHistogram histogram = getHistogram();
+        histogram.add(grade);
+        setHistogram(histogram);
+    }
+
+    /**
+     * Retira una calificación del agregado
+     * 
+     * @param grade Calificación a retirar
+     * @return true si el mínimo o el máximo dejaron de ser confiables y deben recalcularse
+     */
+    public boolean remove(double grade) {
+        gradeCount--;
+        if (gradeCount <= 0) {
+            reset();
+            return false;
+        }
+        gradeSum -= grade;
+        gradeSumOfSquares -= grade * grade;
+        GradeHistogram histogram = getHistogram();
+        histogram.remove(grade);
+        setHistogram(histogram);
+        return (minGrade != null && grade <= minGrade) || (maxGrade != null && grade >= maxGrade);
+    }
+
+    /**
+     * Reemplaza todo el contenido del agregado con valores calculados externamente
+     */
+    public void replace(long count, double sum, double sumOfSquares, Double min, Double max, GradeHistogram histogram) {
+        this.gradeCount = count;
+        this.gradeSum = sum;
+        this.gradeSumOfSquares = sumOfSquares;
+        this.minGrade = min;
+        this.maxGrade = max;
+        setHistogram(histogram);
+    }
+
+    public void reset() {
+        replace(0, 0.0, 0.0, null, null, new GradeHistogram());
+    }
+
+    /**
+     * Obtiene una copia del histograma de notas
+     * 
+     * @return Histograma de notas (vacío si aún no se ha calculado)
+     */
+    public GradeHistogram getHistogram() {
+        return GradeHistogram.fromBytes(gradeHistogram);
+    }
+
+    public void setHistogram(GradeHistogram histogram) {
+        this.gradeHistogram = histogram.toBytes();
+    }
+
+    /**
+     * Calcula el promedio de las calificaciones
+     * 
+     * @return Promedio o null si no hay calificaciones
+     */
+    public Double getAverage() {
+        return gradeCount > 0 ? gradeSum / gradeCount : null;
+    }
+
+    /**
+     * Calcula la varianza poblacional de las calificaciones
+     * 
+     * @return Varianza o null si no hay calificaciones
+     */
+    public Double getVariance() {
+        if (gradeCount <= 0) {
+            return null;
+        }
+        double mean = gradeSum / gradeCount;
+        return Math.max(0.0, gradeSumOfSquares / gradeCount - mean * mean);
+    }
+
+    /**
+     * Ámbito del agregado
+     */
+    public enum Scope {
+        USER("Estudiante"),
+        TASK("Tarea");
+
+        private final String displayName;
+
+        Scope(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.tecsup.demo.entity;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Histograma de calificaciones con cubetas fijas de un punto en la escala 0–20.
+ * La cubeta i cuenta las notas en [i, i+1); la última cubeta cuenta solo las notas de 20.
+ * Ocupa siempre el mismo espacio sin importar la cantidad de entregas y se puede
+ * combinar con otros histogramas sumando cubeta por cubeta.
+ */
+public class GradeHistogram {
+
+    public static final int MAX_GRADE = 20;
+    public static final int BUCKETS = MAX_GRADE + 1;
+
+    /**
+     * Tamaño serializado en bytes (un entero de 4 bytes por cubeta)
+     */
+    public static final int SERIALIZED_SIZE = BUCKETS * Integer.BYTES;
+
+    private final int[] counts;
+
+    public GradeHistogram() {
+        this.counts = new int[BUCKETS];
+    }
+
+    private GradeHistogram(int[] counts) {
+        this.counts = counts;
+    }
+
+    /**
+     * Reconstruye un histograma desde su forma serializada
+     *
+     * @param data Bytes serializados; null o vacío devuelve un histograma vacío
+     * @return Histograma
+     */
+    public static GradeHistogram fromBytes(byte[] data) {
+        GradeHistogram histogram = new GradeHistogram();
+        if (data == null || data.length == 0) {
+            return histogram;
+        }
+        if (data.length != SERIALIZED_SIZE) {
+            throw new IllegalArgumentException("Histograma serializado con tamaño inválido: " + data.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.counts[i] = buffer.getInt();
+        }
+        return histogram;
+    }
+
+    /**
+     * Serializa el histograma en un arreglo de tamaño fijo
+     *
+     * @return Bytes serializados
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(SERIALIZED_SIZE);
+        for (int count : counts) {
+            buffer.putInt(count);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Obtiene la cubeta correspondiente a una nota
+     *
+     * @param grade Nota
+     * @return Índice de la cubeta
+     */
+    public static int bucketOf(double grade) {
+        int bucket = (int) Math.floor(grade);
+        return Math.max(0, Math.min(MAX_GRADE, bucket));
+    }
+
+    public void add(double grade) {
+        counts[bucketOf(grade)]++;
+    }
+
+    public void remove(double grade) {
+        int bucket = bucketOf(grade);
+        if (counts[bucket] > 0) {
+            counts[bucket]--;
+        }
+    }
+
+    /**
+     * Asigna directamente la cantidad de una cubeta (usado al reconstruir desde la base de datos)
+     *
+     * @param bucket Índice de la cubeta
+     * @param count Cantidad de notas
+     */
+    public void setCount(int bucket, long count) {
+        counts[bucket] = Math.toIntExact(count);
+    }
+
+    /**
+     * Suma otro histograma a este
+     *
+     * @param other Histograma a combinar
+     * @return Este mismo histograma
+     */
+    public GradeHistogram merge(GradeHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        return this;
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public int[] getCounts() {
+        return counts.clone();
+    }
+
+    /**
+     * Estima un percentil suponiendo que las notas se reparten uniformemente dentro de cada cubeta
+     *
+     * @param fraction Percentil como fracción entre 0 y 1 (0.5 para la mediana)
+     * @return Nota estimada o null si el histograma está vacío
+     */
+    public Double percentile(double fraction) {
+        if (fraction < 0.0 || fraction > 1.0) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 1");
+        }
+        long total = getTotal();
+        if (total == 0) {
+            return null;
+        }
+
+        double rank = fraction * total;
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            int count = counts[i];
+            if (count == 0) {
+                continue;
+            }
+            if (cumulative + count >= rank) {
+                double width = i == MAX_GRADE ? 0.0 : 1.0;
+                return i + width * Math.max(0.0, rank - cumulative) / count;
+            }
+            cumulative += count;
+        }
+        return (double) MAX_GRADE;
+    }
+
+    public GradeHistogram copy() {
+        return new GradeHistogram(counts.clone());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GradeHistogram other && Arrays.equals(counts, other.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+        return "GradeHistogram" + Arrays.toString(counts);
+    }
+}
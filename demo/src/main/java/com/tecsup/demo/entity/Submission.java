@@ -3,9 +3,14 @@ package com.tecsup.demo.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -15,20 +20,26 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "submissions", uniqueConstraints = {
-        @UniqueConstraint(columnNames = {"task_id", "user_id"}, name = "uk_task_user")
+        @UniqueConstraint(columnNames = {"task_id", "user_id"}, name = Submission.TASK_USER_CONSTRAINT)
 }, indexes = {
-    @Index(name = "idx_submission_date", columnList = "submission_date"),
-    @Index(name = "idx_status", columnList = "status"),
-    @Index(name = "idx_task_id", columnList = "task_id"),
-    @Index(name = "idx_user_id", columnList = "user_id")
+    @Index(name = "idx_submission_date", columnList = "submission_date, id"),
+    @Index(name = "idx_submission_status_date", columnList = "status, submission_date, id"),
+    @Index(name = "idx_submission_user_status", columnList = "user_id, status"),
+    @Index(name = "idx_submission_task_status", columnList = "task_id, status")
 })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Submission {
 
+    /**
+     * Restricción única que impide dos entregas del mismo estudiante para una tarea
+     */
+    public static final String TASK_USER_CONSTRAINT = "uk_task_user";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "submission_id_seq")
+    @SequenceGenerator(name = "submission_id_seq", sequenceName = "submissions_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "La fecha de entrega es obligatoria")
@@ -74,6 +85,17 @@ public class Submission {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * Estado tal como está persistido en la base de datos, usado para calcular deltas al guardar
+     */
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Snapshot persistedState;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -85,6 +107,53 @@ public class Submission {
         updatedAt = LocalDateTime.now();
     }
 
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    protected void capturePersistedState() {
+        persistedState = snapshot();
+    }
+
+    /**
+     * Obtiene el último estado persistido de la entrega
+     * 
+     * @return Estado persistido o null si la entrega aún no se ha guardado
+     */
+    @JsonIgnore
+    public Snapshot getPersistedState() {
+        return persistedState;
+    }
+
+    /**
+     * Captura el estado actual de la entrega
+     * 
+     * @return Instantánea con los campos relevantes para estadísticas
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(
+                user != null ? user.getId() : null,
+                task != null ? task.getId() : null,
+                grade,
+                status,
+                submissionDate
+        );
+    }
+
+    /**
+     * Instantánea inmutable de los campos de una entrega que alimentan las estadísticas
+     */
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    public static final class Snapshot {
+        private final Long userId;
+        private final Long taskId;
+        private final Double grade;
+        private final SubmissionStatus status;
+        private final LocalDateTime submissionDate;
+    }
+
     /**
      * Estados posibles de una entrega
      */
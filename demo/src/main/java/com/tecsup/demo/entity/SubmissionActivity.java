@@ -0,0 +1,92 @@
+package com.tecsup.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Contador de entregas por intervalo de tiempo (hora o día).
+ * Se mantiene de forma incremental al registrar entregas para graficar la actividad
+ * sin recorrer la tabla de entregas.
+ */
+@Entity
+@Table(name = "submission_activity", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"granularity", "bucket_start"}, name = "uk_submission_activity_bucket")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionActivity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "submission_count", nullable = false)
+    private long submissionCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public SubmissionActivity(Granularity granularity, LocalDateTime bucketStart) {
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Granularidad del intervalo de tiempo
+     */
+    public enum Granularity {
+        HOUR("Hora", ChronoUnit.HOURS),
+        DAY("Día", ChronoUnit.DAYS);
+
+        private final String displayName;
+        private final ChronoUnit unit;
+
+        Granularity(String displayName, ChronoUnit unit) {
+            this.displayName = displayName;
+            this.unit = unit;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * Obtiene el inicio del intervalo que contiene una fecha
+         * 
+         * @param dateTime Fecha
+         * @return Inicio del intervalo
+         */
+        public LocalDateTime truncate(LocalDateTime dateTime) {
+            return dateTime.truncatedTo(unit);
+        }
+
+        /**
+         * Obtiene el inicio del intervalo siguiente
+         * 
+         * @param bucketStart Inicio de un intervalo
+         * @return Inicio del intervalo siguiente
+         */
+        public LocalDateTime next(LocalDateTime bucketStart) {
+            return bucketStart.plus(1, unit);
+        }
+    }
+}
@@ -17,7 +17,8 @@ import java.util.List;
 @Entity
 @Table(name = "tasks", indexes = {
     @Index(name = "idx_publication_date", columnList = "publication_date"),
-    @Index(name = "idx_due_date", columnList = "due_date")
+    @Index(name = "idx_due_date", columnList = "due_date, id"),
+    @Index(name = "idx_task_status_due_date", columnList = "status, due_date, id")
 })
 @Data
 @NoArgsConstructor
@@ -25,7 +26,8 @@ import java.util.List;
 public class Task {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_id_seq")
+    @SequenceGenerator(name = "task_id_seq", sequenceName = "tasks_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "El título es obligatorio")
@@ -57,6 +59,13 @@ public class Task {
     @DecimalMax(value = "20.0", message = "La nota máxima no puede superar 20")
     private Double maxGrade = 20.0;
 
+    /**
+     * Fecha límite para la que ya se crearon las entregas PENDING; si difiere de dueDate, falta generarlas
+     */
+    @JsonIgnore
+    @Column(name = "pending_generated_due_date")
+    private LocalDateTime pendingGeneratedDueDate;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
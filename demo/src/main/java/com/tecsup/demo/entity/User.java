@@ -21,7 +21,9 @@ import java.util.List;
 @Entity
 @Table(name = "users", indexes = {
     @Index(name = "idx_username", columnList = "username"),
-    @Index(name = "idx_email", columnList = "email")
+    @Index(name = "idx_email", columnList = "email"),
+    @Index(name = "idx_user_name", columnList = "last_name, first_name, id"),
+    @Index(name = "idx_user_role_name", columnList = "role, last_name, first_name, id")
 })
 @Data
 @NoArgsConstructor
@@ -29,7 +31,8 @@ import java.util.List;
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id_seq")
+    @SequenceGenerator(name = "user_id_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "El nombre de usuario es obligatorio")
@@ -0,0 +1,73 @@
+package com.tecsup.demo.event;
+
+import com.tecsup.demo.entity.Submission;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Objects;
+
+/**
+ * Cambio aplicado a una entrega: estado anterior y estado nuevo.
+ * Una creación no tiene estado anterior y una eliminación no tiene estado nuevo.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class SubmissionChange {
+
+    private final Long submissionId;
+    private final Submission.Snapshot before;
+    private final Submission.Snapshot after;
+
+    public boolean isCreated() {
+        return before == null && after != null;
+    }
+
+    public boolean isDeleted() {
+        return before != null && after == null;
+    }
+
+    /**
+     * Indica si el cambio afecta la calificación, el estudiante o la tarea de la entrega
+     * 
+     * @return true si cambian los datos que alimentan los agregados de notas
+     */
+    public boolean affectsGrade() {
+        Double oldGrade = before != null ? before.getGrade() : null;
+        Double newGrade = after != null ? after.getGrade() : null;
+        if (oldGrade == null && newGrade == null) {
+            return false;
+        }
+        return before == null || after == null
+                || !Objects.equals(oldGrade, newGrade)
+                || !Objects.equals(before.getUserId(), after.getUserId())
+                || !Objects.equals(before.getTaskId(), after.getTaskId());
+    }
+
+    /**
+     * Indica si el cambio afecta los contadores de actividad (entrega realizada y su fecha)
+     * 
+     * @return true si la entrega empieza o deja de contar, o cambia su fecha
+     */
+    public boolean affectsActivity() {
+        boolean counted = countsAsActivity(before);
+        boolean counts = countsAsActivity(after);
+        if (!counted && !counts) {
+            return false;
+        }
+        return counted != counts || !Objects.equals(before.getSubmissionDate(), after.getSubmissionDate());
+    }
+
+    /**
+     * Indica si una entrega cuenta como actividad: existe, tiene fecha y no está pendiente
+     * 
+     * @param snapshot Estado de la entrega
+     * @return true si la entrega cuenta como actividad
+     */
+    public static boolean countsAsActivity(Submission.Snapshot snapshot) {
+        return snapshot != null
+                && snapshot.getSubmissionDate() != null
+                && snapshot.getStatus() != Submission.SubmissionStatus.PENDING;
+    }
+}
@@ -0,0 +1,23 @@
+package com.tecsup.demo.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Evento publicado por SubmissionService cada vez que se guardan o eliminan entregas.
+ * Los listeners síncronos se ejecutan dentro de la misma transacción que el cambio.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class SubmissionChangedEvent {
+
+    private final List<SubmissionChange> changes;
+
+    public SubmissionChangedEvent(SubmissionChange change) {
+        this(List.of(change));
+    }
+}
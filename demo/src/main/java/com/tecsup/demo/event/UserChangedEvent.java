@@ -0,0 +1,19 @@
+package com.tecsup.demo.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * Evento publicado por UserService cuando se modifican o eliminan usuarios existentes.
+ * Los usuarios recién creados no se incluyen: todavía no pueden tener datos en cache.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class UserChangedEvent {
+
+    private final Set<Long> userIds;
+}
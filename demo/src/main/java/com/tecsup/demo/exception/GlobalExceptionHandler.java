@@ -1,18 +1,23 @@
 package com.tecsup.demo.exception;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Manejador global de excepciones para toda la aplicación
@@ -123,6 +128,80 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
     }
 
+    /**
+     * Maneja parámetros de solicitud inválidos (por ejemplo, cursores o límites de paginación)
+     * 
+     * @param ex Excepción de argumento inválido
+     * @return Respuesta de error de solicitud
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalArgument(IllegalArgumentException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Solicitud inválida",
+                ex.getMessage(),
+                null
+        );
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Maneja parámetros de consulta faltantes o con un tipo inválido (fechas, enums, números)
+     * 
+     * @param ex Excepción de parámetro
+     * @return Respuesta de error de solicitud
+     */
+    @ExceptionHandler({MethodArgumentTypeMismatchException.class, MissingServletRequestParameterException.class})
+    public ResponseEntity<ErrorResponse> handleInvalidParameter(Exception ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Parámetro inválido",
+                ex.getMessage(),
+                null
+        );
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Maneja el rechazo de trabajos cuando el pool correspondiente está saturado
+     * 
+     * @param ex Excepción de rechazo
+     * @return Respuesta de servicio no disponible
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorResponse> handleRejectedExecution(RejectedExecutionException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Servicio ocupado",
+                "El servidor está procesando demasiados trabajos. Intenta nuevamente más tarde.",
+                null
+        );
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Maneja errores de E/S. Si la respuesta ya está comprometida (un cliente que cerró un canal SSE
+     * o una descarga en streaming) no queda nadie a quien enviar el error y no se escribe nada
+     * 
+     * @param ex Excepción de E/S
+     * @param request Request web
+     * @param response Respuesta HTTP
+     * @return Respuesta de error interno o null si la respuesta ya estaba comprometida
+     */
+    @ExceptionHandler(IOException.class)
+    public ResponseEntity<ErrorResponse> handleIOException(IOException ex, WebRequest request, HttpServletResponse response) {
+        if (response.isCommitted()) {
+            return null;
+        }
+        return handleAllExceptions(ex, request);
+    }
+
     /**
      * Maneja errores genéricos de runtime
      * 
@@ -0,0 +1,43 @@
+package com.tecsup.demo.job;
+
+import com.tecsup.demo.service.GradeAggregateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea programada que reconstruye los agregados de calificaciones desde la tabla de entregas.
+ * Corrige cualquier desviación acumulada (redondeo, eliminaciones en cascada, cambios fuera de la API).
+ */
+@Component
+public class GradeAggregateReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(GradeAggregateReconciliationJob.class);
+
+    private final GradeAggregateService gradeAggregateService;
+
+    public GradeAggregateReconciliationJob(GradeAggregateService gradeAggregateService) {
+        this.gradeAggregateService = gradeAggregateService;
+    }
+
+    /**
+     * Reconcilia al arrancar para que los agregados existan aunque la tabla se haya creado vacía
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * Reconcilia periódicamente según la expresión cron configurada
+     */
+    @Scheduled(cron = "${statistics.aggregates.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        gradeAggregateService.rebuildAll();
+        log.info("Agregados de calificaciones reconciliados en {} ms", System.currentTimeMillis() - start);
+    }
+}
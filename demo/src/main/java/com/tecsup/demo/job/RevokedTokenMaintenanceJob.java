@@ -0,0 +1,45 @@
+package com.tecsup.demo.job;
+
+import com.tecsup.demo.service.TokenRevocationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea programada que mantiene el índice de tokens revocados: incorpora con frecuencia las revocaciones
+ * registradas por otras instancias y, con menos frecuencia, purga las de tokens expirados y reconstruye el filtro.
+ */
+@Component
+public class RevokedTokenMaintenanceJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedTokenMaintenanceJob.class);
+
+    private final TokenRevocationService revocationService;
+
+    public RevokedTokenMaintenanceJob(TokenRevocationService revocationService) {
+        this.revocationService = revocationService;
+    }
+
+    /**
+     * Sincroniza las revocaciones recientes según el intervalo configurado
+     */
+    @Scheduled(initialDelayString = "${security.revocation.sync-interval-ms:30000}",
+               fixedDelayString = "${security.revocation.sync-interval-ms:30000}")
+    public void syncRecent() {
+        int synced = revocationService.syncRecent();
+        log.debug("{} revocaciones recientes sincronizadas", synced);
+    }
+
+    /**
+     * Purga las revocaciones expiradas y reconstruye el índice según el intervalo configurado
+     */
+    @Scheduled(initialDelayString = "${security.revocation.purge-interval-ms:3600000}",
+               fixedDelayString = "${security.revocation.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = revocationService.purgeExpired();
+        if (purged > 0) {
+            log.info("{} revocaciones de tokens expirados eliminadas", purged);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.tecsup.demo.job;
+
+import com.tecsup.demo.service.SubmissionActivityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea programada que reconstruye los contadores de actividad desde la tabla de entregas.
+ * Llena la tabla la primera vez y corrige cambios hechos fuera de la API.
+ */
+@Component
+public class SubmissionActivityReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionActivityReconciliationJob.class);
+
+    private final SubmissionActivityService activityService;
+
+    public SubmissionActivityReconciliationJob(SubmissionActivityService activityService) {
+        this.activityService = activityService;
+    }
+
+    /**
+     * Reconcilia al arrancar para que los contadores existan aunque la tabla se haya creado vacía
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * Reconcilia periódicamente según la expresión cron configurada
+     */
+    @Scheduled(cron = "${statistics.activity.reconcile-cron:0 45 3 * * *}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        activityService.rebuildAll();
+        log.info("Contadores de actividad reconciliados en {} ms", System.currentTimeMillis() - start);
+    }
+}
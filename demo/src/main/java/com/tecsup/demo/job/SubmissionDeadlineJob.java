@@ -0,0 +1,73 @@
+package com.tecsup.demo.job;
+
+import com.tecsup.demo.service.SubmissionDeadlineService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Tarea programada que aplica las fechas límite: marca como LATE las entregas posteriores a la fecha
+ * límite de su tarea y crea entregas PENDING para los estudiantes que no entregaron una tarea vencida.
+ * Trabaja por bloques, cada uno en una transacción corta, y limita los bloques por ejecución para que
+ * una pasada grande se reparta entre varias ejecuciones en lugar de bloquear filas durante minutos.
+ */
+@Component
+public class SubmissionDeadlineJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionDeadlineJob.class);
+
+    private final SubmissionDeadlineService deadlineService;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    public SubmissionDeadlineJob(SubmissionDeadlineService deadlineService,
+                                 @Value("${submissions.deadlines.chunk-size:500}") int chunkSize,
+                                 @Value("${submissions.deadlines.max-chunks-per-run:20}") int maxChunksPerRun) {
+        this.deadlineService = deadlineService;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+
+    /**
+     * Aplica las fechas límite periódicamente según el intervalo configurado
+     */
+    @Scheduled(initialDelayString = "${submissions.deadlines.interval-ms:300000}",
+               fixedDelayString = "${submissions.deadlines.interval-ms:300000}")
+    public void enforceDeadlines() {
+        long start = System.currentTimeMillis();
+        int late = processChunks("marcar entregas fuera de plazo", deadlineService::markLateSubmissions);
+        int pending = processChunks("crear entregas pendientes", deadlineService::createPendingSubmissions);
+        if (late > 0 || pending > 0) {
+            log.info("Fechas límite aplicadas en {} ms: {} entregas fuera de plazo, {} pendientes",
+                    System.currentTimeMillis() - start, late, pending);
+        }
+    }
+
+    /**
+     * Procesa bloques hasta que uno llega incompleto o se alcanza el máximo por ejecución.
+     * Si un bloque falla (por ejemplo, un estudiante entregó mientras se creaba su fila pendiente),
+     * se detiene y lo reintenta la siguiente ejecución.
+     */
+    private int processChunks(String description, IntUnaryOperator chunk) {
+        int total = 0;
+        for (int i = 0; i < maxChunksPerRun; i++) {
+            int processed;
+            try {
+                processed = chunk.applyAsInt(chunkSize);
+            } catch (DataAccessException e) {
+                log.warn("No se pudo {}; se reintentará en la siguiente ejecución: {}", description, e.getMessage());
+                break;
+            }
+            total += processed;
+            if (processed < chunkSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,86 @@
+package com.tecsup.demo.repository;
+
+import com.tecsup.demo.entity.GradeAggregate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para los agregados de calificaciones
+ */
+@Repository
+public interface GradeAggregateRepository extends JpaRepository<GradeAggregate, Long> {
+
+    /**
+     * Busca el agregado de un estudiante o tarea
+     * 
+     * @param scope Ámbito del agregado
+     * @param scopeId ID del estudiante o tarea
+     * @return Optional con el agregado si existe
+     */
+    Optional<GradeAggregate> findByScopeAndScopeId(GradeAggregate.Scope scope, Long scopeId);
+
+    /**
+     * Busca todos los agregados de un ámbito
+     * 
+     * @param scope Ámbito de los agregados
+     * @return Lista de agregados del ámbito
+     */
+    List<GradeAggregate> findByScope(GradeAggregate.Scope scope);
+
+    /**
+     * Obtiene los IDs de estudiantes o tareas que tienen agregado en un ámbito
+     * 
+     * @param scope Ámbito de los agregados
+     * @return IDs de estudiantes o tareas
+     */
+    @Query("SELECT a.scopeId FROM GradeAggregate a WHERE a.scope = :scope")
+    List<Long> findScopeIds(@Param("scope") GradeAggregate.Scope scope);
+
+    /**
+     * Busca los agregados de un conjunto de estudiantes o tareas
+     * 
+     * @param scope Ámbito de los agregados
+     * @param scopeIds IDs de estudiantes o tareas
+     * @return Lista de agregados encontrados
+     */
+    List<GradeAggregate> findByScopeAndScopeIdIn(GradeAggregate.Scope scope, Collection<Long> scopeIds);
+
+    /**
+     * Crea en cero el agregado de un estudiante o tarea si todavía no existe; si ya existe solo actualiza
+     * su fecha. Si otra transacción lo crea al mismo tiempo, la base de datos espera a que termine y actualiza
+     * la fila creada, en lugar de violar la clave única.
+     * Hibernate traduce ON CONFLICT a la sintaxis de cada motor (ON DUPLICATE KEY UPDATE en MySQL, MERGE en H2).
+     * 
+     * @param scope Ámbito del agregado
+     * @param scopeId ID del estudiante o tarea
+     * @param now Fecha de creación o actualización
+     * @return Número de filas insertadas o actualizadas
+     */
+    @Modifying
+    @Query("INSERT INTO GradeAggregate (scope, scopeId, gradeCount, gradeSum, gradeSumOfSquares, updatedAt) " +
+           "VALUES (:scope, :scopeId, 0, 0.0, 0.0, :now) ON CONFLICT (scope, scopeId) DO UPDATE SET updatedAt = :now")
+    int insertIfAbsent(@Param("scope") GradeAggregate.Scope scope, @Param("scopeId") Long scopeId,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Busca y bloquea los agregados indicados para actualizarlos de forma segura
+     * 
+     * @param scope Ámbito de los agregados
+     * @param scopeIds IDs de estudiantes o tareas
+     * @return Lista de agregados bloqueados
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM GradeAggregate a WHERE a.scope = :scope AND a.scopeId IN :scopeIds ORDER BY a.scopeId")
+    List<GradeAggregate> findForUpdate(@Param("scope") GradeAggregate.Scope scope,
+                                       @Param("scopeIds") Collection<Long> scopeIds);
+}
@@ -0,0 +1,47 @@
+package com.tecsup.demo.repository;
+
+import com.tecsup.demo.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para los tokens revocados
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Busca las revocaciones de tokens que todavía no expiraron
+     * 
+     * @param now Fecha actual
+     * @return Revocaciones vigentes
+     */
+    @Query("SELECT r FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<RevokedToken> findActive(@Param("now") LocalDateTime now);
+
+    /**
+     * Busca las revocaciones vigentes registradas desde una fecha, incluidas las de otras instancias
+     * 
+     * @param since Fecha desde la que buscar (inclusive)
+     * @param now Fecha actual
+     * @return Revocaciones vigentes registradas desde la fecha
+     */
+    @Query("SELECT r FROM RevokedToken r WHERE r.revokedAt >= :since AND r.expiresAt > :now")
+    List<RevokedToken> findActiveRevokedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    /**
+     * Elimina las revocaciones de tokens ya expirados, que no necesitan seguir registradas
+     * 
+     * @param now Fecha actual
+     * @return Número de filas eliminadas
+     */
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,66 @@
+package com.tecsup.demo.repository;
+
+import com.tecsup.demo.entity.SubmissionActivity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para los contadores de actividad de entregas
+ */
+@Repository
+public interface SubmissionActivityRepository extends JpaRepository<SubmissionActivity, Long> {
+
+    /**
+     * Busca los contadores de un rango de fechas con una lectura por rango del índice único
+     * 
+     * @param granularity Granularidad de los intervalos
+     * @param from Inicio del rango (inclusive)
+     * @param to Fin del rango (inclusive)
+     * @return Contadores ordenados por inicio de intervalo
+     */
+    List<SubmissionActivity> findByGranularityAndBucketStartBetweenOrderByBucketStart(
+            SubmissionActivity.Granularity granularity, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Suma una variación al contador de un intervalo en una sola sentencia atómica, creándolo si no existe.
+     * Dos entregas simultáneas en un intervalo nuevo no chocan con la clave única: la segunda suma sobre la
+     * fila que creó la primera. El contador nunca queda por debajo de cero.
+     * Hibernate traduce ON CONFLICT a la sintaxis de cada motor (ON DUPLICATE KEY UPDATE en MySQL, MERGE en H2).
+     * 
+     * @param granularity Granularidad del intervalo
+     * @param bucketStart Inicio del intervalo
+     * @param delta Variación del contador
+     * @param initialCount Valor del contador si el intervalo no existía
+     * @param now Fecha de actualización
+     * @return Número de filas insertadas o actualizadas
+     */
+    @Modifying
+    @Query("INSERT INTO SubmissionActivity (granularity, bucketStart, submissionCount, updatedAt) " +
+           "VALUES (:granularity, :bucketStart, :initialCount, :now) " +
+           "ON CONFLICT (granularity, bucketStart) DO UPDATE SET " +
+           "submissionCount = CASE WHEN submissionCount + :delta < 0 THEN 0 ELSE submissionCount + :delta END, " +
+           "updatedAt = :now")
+    int addToCount(@Param("granularity") SubmissionActivity.Granularity granularity,
+                   @Param("bucketStart") LocalDateTime bucketStart,
+                   @Param("delta") long delta,
+                   @Param("initialCount") long initialCount,
+                   @Param("now") LocalDateTime now);
+
+    /**
+     * Busca y bloquea todos los contadores de una granularidad
+     * 
+     * @param granularity Granularidad de los intervalos
+     * @return Lista de contadores bloqueados
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM SubmissionActivity a WHERE a.granularity = :granularity")
+    List<SubmissionActivity> findAllForUpdate(@Param("granularity") SubmissionActivity.Granularity granularity);
+}
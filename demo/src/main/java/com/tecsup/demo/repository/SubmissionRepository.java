@@ -1,16 +1,26 @@
 package com.tecsup.demo.repository;
 
+import com.tecsup.demo.dto.SubmissionView;
 import com.tecsup.demo.entity.Submission;
 import com.tecsup.demo.entity.Task;
 import com.tecsup.demo.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para operaciones de base de datos relacionadas con entregas
@@ -18,6 +28,17 @@ import java.util.Optional;
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
 
+    /**
+     * Proyección común de las consultas de lectura: la entrega con el resumen de su estudiante
+     * y su tarea en una sola sentencia, sin cargar entidades relacionadas
+     */
+    String VIEW_SELECT = "SELECT new com.tecsup.demo.dto.SubmissionView(" +
+            "s.id, s.submissionDate, s.status, s.grade, s.comments, s.fileUrl, s.fileName, s.fileSize, " +
+            "u.id, u.username, u.firstName, u.lastName, " +
+            "t.id, t.title, t.dueDate, t.maxGrade, " +
+            "s.createdAt, s.updatedAt) " +
+            "FROM Submission s JOIN s.user u JOIN s.task t ";
+
     /**
      * Busca una entrega por tarea y usuario
      * 
@@ -36,6 +57,27 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
      */
     boolean existsByTaskAndUser(Task task, User user);
 
+    /**
+     * Busca la entrega de un usuario para una tarea usando solo sus IDs
+     * 
+     * @param userId ID del usuario
+     * @param taskId ID de la tarea
+     * @return Optional con la entrega si existe
+     */
+    @Query("SELECT s FROM Submission s WHERE s.user.id = :userId AND s.task.id = :taskId")
+    Optional<Submission> findByUserIdAndTaskId(@Param("userId") Long userId, @Param("taskId") Long taskId);
+
+    /**
+     * Busca y bloquea la entrega de un usuario para una tarea, para modificarla sin carreras con una calificación
+     * 
+     * @param userId ID del usuario
+     * @param taskId ID de la tarea
+     * @return Optional con la entrega bloqueada si existe
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Submission s WHERE s.user.id = :userId AND s.task.id = :taskId")
+    Optional<Submission> findByUserIdAndTaskIdForUpdate(@Param("userId") Long userId, @Param("taskId") Long taskId);
+
     /**
      * Busca entregas por usuario
      * 
@@ -69,12 +111,43 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
      */
     List<Submission> findBySubmissionDateBetween(LocalDateTime startDate, LocalDateTime endDate);
 
+    /**
+     * Verifica si un usuario tiene alguna entrega que referencia el archivo indicado
+     * 
+     * @param userId ID del usuario
+     * @param fileUrl URL del archivo
+     * @return true si existe, false en caso contrario
+     */
+    @Query("SELECT COUNT(s) > 0 FROM Submission s WHERE s.user.id = :userId AND s.fileUrl = :fileUrl")
+    boolean existsByUserIdAndFileUrl(@Param("userId") Long userId, @Param("fileUrl") String fileUrl);
+
+    /**
+     * Obtiene los archivos del almacén local adjuntados a las entregas de una tarea
+     * 
+     * @param taskId ID de la tarea
+     * @param fileUrlPrefix Prefijo de fileUrl de los archivos locales
+     * @return Filas [nombre de usuario, nombre del archivo, fileUrl] ordenadas por usuario
+     */
+    @Query("SELECT u.username, s.fileName, s.fileUrl FROM Submission s JOIN s.user u " +
+           "WHERE s.task.id = :taskId AND s.fileUrl LIKE CONCAT(:fileUrlPrefix, '%') ORDER BY u.username")
+    List<Object[]> findLocalFilesByTask(@Param("taskId") Long taskId, @Param("fileUrlPrefix") String fileUrlPrefix);
+
+    /**
+     * Obtiene los pares (usuario, tarea) que ya tienen entrega, entre los usuarios y tareas indicados
+     * 
+     * @param userIds IDs de usuarios
+     * @param taskIds IDs de tareas
+     * @return Pares [userId, taskId] existentes
+     */
+    @Query("SELECT s.user.id, s.task.id FROM Submission s WHERE s.user.id IN :userIds AND s.task.id IN :taskIds")
+    List<Object[]> findUserTaskPairs(@Param("userIds") Collection<Long> userIds, @Param("taskIds") Collection<Long> taskIds);
+
     /**
      * Busca entregas ordenadas por fecha de entrega (más recientes primero)
      * 
      * @return Lista de entregas ordenadas por fecha
      */
-    @Query("SELECT s FROM Submission s ORDER BY s.submissionDate DESC")
+    @Query("SELECT s FROM Submission s ORDER BY s.submissionDate DESC, s.id DESC")
     List<Submission> findAllOrderedBySubmissionDate();
 
     /**
@@ -130,4 +203,291 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
      */
     @Query("SELECT COUNT(s) FROM Submission s WHERE s.task = :task")
     Long countByTask(@Param("task") Task task);
+
+    /**
+     * Cuenta las entregas agrupadas por estado en una sola consulta
+     * 
+     * @return Filas [estado, cantidad]
+     */
+    @Query("SELECT s.status, COUNT(s) FROM Submission s GROUP BY s.status")
+    List<Object[]> countGroupedByStatus();
+
+    /**
+     * Cuenta las entregas de un usuario agrupadas por estado (usa el índice user_id, status)
+     * 
+     * @param userId ID del usuario
+     * @return Filas [estado, cantidad]
+     */
+    @Query("SELECT s.status, COUNT(s) FROM Submission s WHERE s.user.id = :userId GROUP BY s.status")
+    List<Object[]> countGroupedByStatusForUser(@Param("userId") Long userId);
+
+    /**
+     * Cuenta las entregas de una tarea agrupadas por estado (usa el índice task_id, status)
+     * 
+     * @param taskId ID de la tarea
+     * @return Filas [estado, cantidad]
+     */
+    @Query("SELECT s.status, COUNT(s) FROM Submission s WHERE s.task.id = :taskId GROUP BY s.status")
+    List<Object[]> countGroupedByStatusForTask(@Param("taskId") Long taskId);
+
+    /**
+     * Obtiene los IDs de los estudiantes con al menos una entrega calificada
+     * 
+     * @return IDs de estudiantes
+     */
+    @Query("SELECT DISTINCT s.user.id FROM Submission s WHERE s.grade IS NOT NULL")
+    List<Long> findGradedUserIds();
+
+    /**
+     * Obtiene los IDs de las tareas con al menos una entrega calificada
+     * 
+     * @return IDs de tareas
+     */
+    @Query("SELECT DISTINCT s.task.id FROM Submission s WHERE s.grade IS NOT NULL")
+    List<Long> findGradedTaskIds();
+
+    /**
+     * Resume las calificaciones de los estudiantes indicados (cantidad, suma, suma de cuadrados, mínimo y máximo)
+     * 
+     * @param userIds IDs de los estudiantes
+     * @return Filas [userId, cantidad, suma, sumaCuadrados, mínimo, máximo]
+     */
+    @Query("SELECT s.user.id, COUNT(s.grade), SUM(s.grade), SUM(s.grade * s.grade), MIN(s.grade), MAX(s.grade) " +
+           "FROM Submission s WHERE s.grade IS NOT NULL AND s.user.id IN :userIds GROUP BY s.user.id")
+    List<Object[]> summarizeGradesByUsers(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Resume las calificaciones de las tareas indicadas (cantidad, suma, suma de cuadrados, mínimo y máximo)
+     * 
+     * @param taskIds IDs de las tareas
+     * @return Filas [taskId, cantidad, suma, sumaCuadrados, mínimo, máximo]
+     */
+    @Query("SELECT s.task.id, COUNT(s.grade), SUM(s.grade), SUM(s.grade * s.grade), MIN(s.grade), MAX(s.grade) " +
+           "FROM Submission s WHERE s.grade IS NOT NULL AND s.task.id IN :taskIds GROUP BY s.task.id")
+    List<Object[]> summarizeGradesByTasks(@Param("taskIds") Collection<Long> taskIds);
+
+    /**
+     * Obtiene la nota mínima y máxima de un estudiante
+     * 
+     * @param userId ID del estudiante
+     * @return Fila [mínimo, máximo]
+     */
+    @Query("SELECT MIN(s.grade), MAX(s.grade) FROM Submission s WHERE s.user.id = :userId AND s.grade IS NOT NULL")
+    List<Object[]> findGradeRangeByUserId(@Param("userId") Long userId);
+
+    /**
+     * Obtiene la nota mínima y máxima de una tarea
+     * 
+     * @param taskId ID de la tarea
+     * @return Fila [mínimo, máximo]
+     */
+    @Query("SELECT MIN(s.grade), MAX(s.grade) FROM Submission s WHERE s.task.id = :taskId AND s.grade IS NOT NULL")
+    List<Object[]> findGradeRangeByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * Cuenta las notas de los estudiantes indicados por cubeta de un punto (parte entera de la nota)
+     * 
+     * @param userIds IDs de los estudiantes
+     * @return Filas [userId, cubeta, cantidad]
+     */
+    @Query("SELECT s.user.id, FLOOR(s.grade), COUNT(s) FROM Submission s WHERE s.grade IS NOT NULL " +
+           "AND s.user.id IN :userIds GROUP BY s.user.id, FLOOR(s.grade)")
+    List<Object[]> countGradeBucketsByUsers(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Cuenta las notas de las tareas indicadas por cubeta de un punto (parte entera de la nota)
+     * 
+     * @param taskIds IDs de las tareas
+     * @return Filas [taskId, cubeta, cantidad]
+     */
+    @Query("SELECT s.task.id, FLOOR(s.grade), COUNT(s) FROM Submission s WHERE s.grade IS NOT NULL " +
+           "AND s.task.id IN :taskIds GROUP BY s.task.id, FLOOR(s.grade)")
+    List<Object[]> countGradeBucketsByTasks(@Param("taskIds") Collection<Long> taskIds);
+
+    /**
+     * Cuenta las entregas realizadas por hora, agrupando en la base de datos.
+     * Las entregas pendientes no cuentan como actividad.
+     * 
+     * @return Filas [año, mes, día, hora, cantidad]
+     */
+    @Query("SELECT YEAR(s.submissionDate), MONTH(s.submissionDate), DAY(s.submissionDate), HOUR(s.submissionDate), COUNT(s) " +
+           "FROM Submission s WHERE s.status <> com.tecsup.demo.entity.Submission.SubmissionStatus.PENDING " +
+           "GROUP BY YEAR(s.submissionDate), MONTH(s.submissionDate), DAY(s.submissionDate), HOUR(s.submissionDate)")
+    List<Object[]> countSubmissionsByHour();
+
+    /**
+     * Recorre las columnas de todas las entregas como proyección escalar, sin materializar entidades.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     * 
+     * @return Stream de filas [id, userId, taskId, nota, estado, fechaEntrega]
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT s.id, s.user.id, s.task.id, s.grade, s.status, s.submissionDate FROM Submission s")
+    Stream<Object[]> streamColumns();
+
+    /**
+     * Recorre la libreta de notas completa: cada estudiante cruzado con cada tarea, con su entrega si existe.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     * 
+     * @param role Rol de los estudiantes
+     * @return Stream de filas [userId, username, nombre, apellido, taskId, título, estado, nota, fechaEntrega]
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u.id, u.username, u.firstName, u.lastName, t.id, t.title, s.status, s.grade, s.submissionDate " +
+           "FROM User u CROSS JOIN Task t LEFT JOIN Submission s ON s.user = u AND s.task = t " +
+           "WHERE u.role = :role ORDER BY u.id, t.id")
+    Stream<Object[]> streamGradebook(@Param("role") User.UserRole role);
+
+    /**
+     * Obtiene la vista de una entrega con el resumen de su estudiante y su tarea
+     * 
+     * @param id ID de la entrega
+     * @return Optional con la vista si existe
+     */
+    @Query(VIEW_SELECT + "WHERE s.id = :id")
+    Optional<SubmissionView> findViewById(@Param("id") Long id);
+
+    /**
+     * Obtiene las vistas de las entregas de una tarea (más recientes primero)
+     * 
+     * @param taskId ID de la tarea
+     * @return Vistas de las entregas de la tarea
+     */
+    @Query(VIEW_SELECT + "WHERE t.id = :taskId ORDER BY s.submissionDate DESC, s.id DESC")
+    List<SubmissionView> findViewsByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * Obtiene las vistas de las entregas de un usuario (más recientes primero)
+     * 
+     * @param userId ID del usuario
+     * @return Vistas de las entregas del usuario
+     */
+    @Query(VIEW_SELECT + "WHERE u.id = :userId ORDER BY s.submissionDate DESC, s.id DESC")
+    List<SubmissionView> findViewsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Obtiene la primera página de entregas (más recientes primero), con estudiante y tarea
+     * 
+     * @param pageable Tamaño de la página
+     * @return Vistas de la primera página
+     */
+    @Query(VIEW_SELECT + "ORDER BY s.submissionDate DESC, s.id DESC")
+    List<SubmissionView> findPageOrderedBySubmissionDate(Pageable pageable);
+
+    /**
+     * Obtiene la página de entregas que sigue a la posición (fecha, id) indicada
+     * 
+     * @param submissionDate Fecha de entrega de la última fila de la página anterior
+     * @param id ID de la última fila de la página anterior
+     * @param pageable Tamaño de la página
+     * @return Vistas de la página siguiente
+     */
+    @Query(VIEW_SELECT + "WHERE s.submissionDate <= :submissionDate AND (s.submissionDate < :submissionDate OR s.id < :id) " +
+           "ORDER BY s.submissionDate DESC, s.id DESC")
+    List<SubmissionView> findPageOrderedBySubmissionDateAfter(@Param("submissionDate") LocalDateTime submissionDate,
+                                                              @Param("id") Long id,
+                                                              Pageable pageable);
+
+    /**
+     * Obtiene la primera página de entregas con un estado (más recientes primero)
+     * 
+     * @param status Estado de las entregas
+     * @param pageable Tamaño de la página
+     * @return Vistas de la primera página
+     */
+    @Query(VIEW_SELECT + "WHERE s.status = :status ORDER BY s.submissionDate DESC, s.id DESC")
+    List<SubmissionView> findPageByStatusOrderedBySubmissionDate(@Param("status") Submission.SubmissionStatus status,
+                                                                 Pageable pageable);
+
+    /**
+     * Obtiene la página de entregas con un estado que sigue a la posición (fecha, id) indicada
+     * 
+     * @param status Estado de las entregas
+     * @param submissionDate Fecha de entrega de la última fila de la página anterior
+     * @param id ID de la última fila de la página anterior
+     * @param pageable Tamaño de la página
+     * @return Vistas de la página siguiente
+     */
+    @Query(VIEW_SELECT + "WHERE s.status = :status " +
+           "AND s.submissionDate <= :submissionDate AND (s.submissionDate < :submissionDate OR s.id < :id) " +
+           "ORDER BY s.submissionDate DESC, s.id DESC")
+    List<SubmissionView> findPageByStatusOrderedBySubmissionDateAfter(@Param("status") Submission.SubmissionStatus status,
+                                                                      @Param("submissionDate") LocalDateTime submissionDate,
+                                                                      @Param("id") Long id,
+                                                                      Pageable pageable);
+
+    /**
+     * Busca y bloquea un bloque de entregas SUBMITTED cuya fecha de entrega supera la fecha límite de su tarea.
+     * La fecha límite se lee con una subconsulta para bloquear solo las entregas y no sus tareas.
+     * 
+     * @param pageable Tamaño del bloque
+     * @return Entregas fuera de plazo bloqueadas, en orden ascendente de ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Submission s " +
+           "WHERE s.status = com.tecsup.demo.entity.Submission.SubmissionStatus.SUBMITTED " +
+           "AND s.submissionDate > (SELECT t.dueDate FROM Task t WHERE t.id = s.task.id) ORDER BY s.id")
+    List<Submission> findLateCandidatesForUpdate(Pageable pageable);
+
+    /**
+     * Marca como LATE, en una sola sentencia, las entregas indicadas; deben estar bloqueadas por
+     * {@link #findLateCandidatesForUpdate(Pageable)} en la misma transacción
+     * 
+     * @param ids IDs de las entregas
+     * @param updatedAt Fecha de actualización que se asigna a las filas marcadas
+     * @return Número de entregas marcadas
+     */
+    @Modifying
+    @Query("UPDATE Submission s SET s.status = com.tecsup.demo.entity.Submission.SubmissionStatus.LATE, " +
+           "s.updatedAt = :updatedAt WHERE s.id IN :ids")
+    int markLate(@Param("ids") Collection<Long> ids, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Obtiene un bloque de tareas activas vencidas cuyas entregas PENDING aún no se generaron para su fecha límite actual
+     * 
+     * @param now Fecha actual
+     * @param pageable Tamaño del bloque
+     * @return IDs de las tareas en orden ascendente
+     */
+    @Query("SELECT t.id FROM Task t WHERE t.status = com.tecsup.demo.entity.Task.TaskStatus.ACTIVE " +
+           "AND t.dueDate < :now " +
+           "AND (t.pendingGeneratedDueDate IS NULL OR t.pendingGeneratedDueDate <> t.dueDate) ORDER BY t.id")
+    List<Long> findTasksAwaitingPending(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Obtiene un bloque de pares (estudiante, tarea) sin entrega para las tareas indicadas.
+     * Solo considera a los estudiantes registrados antes de la fecha límite de la tarea.
+     * 
+     * @param role Rol de los estudiantes
+     * @param taskIds IDs de las tareas vencidas
+     * @param pageable Tamaño del bloque
+     * @return Filas [userId, taskId, fechaLímite] ordenadas por tarea y usuario
+     */
+    @Query("SELECT u.id, t.id, t.dueDate FROM User u CROSS JOIN Task t " +
+           "WHERE u.role = :role AND t.id IN :taskIds AND u.createdAt < t.dueDate " +
+           "AND NOT EXISTS (SELECT 1 FROM Submission s WHERE s.user = u AND s.task = t) " +
+           "ORDER BY t.id, u.id")
+    List<Object[]> findMissingSubmissions(@Param("role") User.UserRole role,
+                                          @Param("taskIds") Collection<Long> taskIds,
+                                          Pageable pageable);
+
+    /**
+     * Marca las tareas indicadas como procesadas para su fecha límite actual, salvo las que ya no están vencidas
+     * 
+     * @param taskIds IDs de las tareas
+     * @param now Fecha actual
+     * @return Número de tareas marcadas
+     */
+    @Modifying
+    @Query("UPDATE Task t SET t.pendingGeneratedDueDate = t.dueDate WHERE t.id IN :taskIds AND t.dueDate < :now")
+    int markPendingGenerated(@Param("taskIds") Collection<Long> taskIds, @Param("now") LocalDateTime now);
+
+    /**
+     * Busca varias entregas por ID junto con su tarea en una sola consulta
+     * 
+     * @param ids IDs de las entregas
+     * @return Entregas encontradas
+     */
+    @Query("SELECT s FROM Submission s JOIN FETCH s.task WHERE s.id IN :ids")
+    List<Submission> findAllWithTaskByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,6 +1,7 @@
 package com.tecsup.demo.repository;
 
 import com.tecsup.demo.entity.Task;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -52,7 +53,7 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
      * 
      * @return Lista de tareas activas ordenadas por fecha de vencimiento
      */
-    @Query("SELECT t FROM Task t WHERE t.status = 'ACTIVE' ORDER BY t.dueDate ASC")
+    @Query("SELECT t FROM Task t WHERE t.status = 'ACTIVE' ORDER BY t.dueDate ASC, t.id ASC")
     List<Task> findActiveTasksOrderedByDueDate();
     
     /**
@@ -65,4 +66,62 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     @Query("SELECT t FROM Task t WHERE t.dueDate BETWEEN :startDate AND :endDate")
     List<Task> findTasksDueBetween(@Param("startDate") LocalDateTime startDate, 
                                    @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Cuenta las tareas agrupadas por estado en una sola consulta
+     * 
+     * @return Filas [estado, cantidad]
+     */
+    @Query("SELECT t.status, COUNT(t) FROM Task t GROUP BY t.status")
+    List<Object[]> countGroupedByStatus();
+
+    /**
+     * Obtiene la primera página de tareas ordenadas por fecha de vencimiento
+     * 
+     * @param pageable Tamaño de la página
+     * @return Tareas de la primera página
+     */
+    @Query("SELECT t FROM Task t ORDER BY t.dueDate ASC, t.id ASC")
+    List<Task> findPageOrderedByDueDate(Pageable pageable);
+
+    /**
+     * Obtiene la página de tareas que sigue a la posición (vencimiento, id) indicada
+     * 
+     * @param dueDate Fecha de vencimiento de la última fila de la página anterior
+     * @param id ID de la última fila de la página anterior
+     * @param pageable Tamaño de la página
+     * @return Tareas de la página siguiente
+     */
+    @Query("SELECT t FROM Task t WHERE t.dueDate >= :dueDate AND (t.dueDate > :dueDate OR t.id > :id) " +
+           "ORDER BY t.dueDate ASC, t.id ASC")
+    List<Task> findPageOrderedByDueDateAfter(@Param("dueDate") LocalDateTime dueDate,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    /**
+     * Obtiene la primera página de tareas con un estado ordenadas por fecha de vencimiento
+     * 
+     * @param status Estado de las tareas
+     * @param pageable Tamaño de la página
+     * @return Tareas de la primera página
+     */
+    @Query("SELECT t FROM Task t WHERE t.status = :status ORDER BY t.dueDate ASC, t.id ASC")
+    List<Task> findPageByStatusOrderedByDueDate(@Param("status") Task.TaskStatus status, Pageable pageable);
+
+    /**
+     * Obtiene la página de tareas con un estado que sigue a la posición (vencimiento, id) indicada
+     * 
+     * @param status Estado de las tareas
+     * @param dueDate Fecha de vencimiento de la última fila de la página anterior
+     * @param id ID de la última fila de la página anterior
+     * @param pageable Tamaño de la página
+     * @return Tareas de la página siguiente
+     */
+    @Query("SELECT t FROM Task t WHERE t.status = :status " +
+           "AND t.dueDate >= :dueDate AND (t.dueDate > :dueDate OR t.id > :id) " +
+           "ORDER BY t.dueDate ASC, t.id ASC")
+    List<Task> findPageByStatusOrderedByDueDateAfter(@Param("status") Task.TaskStatus status,
+                                                     @Param("dueDate") LocalDateTime dueDate,
+                                                     @Param("id") Long id,
+                                                     Pageable pageable);
 }
@@ -1,11 +1,14 @@
 package com.tecsup.demo.repository;
 
+import com.tecsup.demo.entity.GradeAggregate;
 import com.tecsup.demo.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +33,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return Optional con el usuario si existe
      */
     Optional<User> findByEmail(String email);
+
+    /**
+     * Obtiene, de una lista de nombres de usuario, los que ya están registrados (una sola consulta IN)
+     * 
+     * @param usernames Nombres de usuario a verificar
+     * @return Nombres de usuario existentes
+     */
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Obtiene, de una lista de emails, los que ya están registrados (una sola consulta IN)
+     * 
+     * @param emails Emails a verificar
+     * @return Emails existentes
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
     
     /**
      * Busca usuarios por rol
@@ -69,7 +90,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * 
      * @return Lista de usuarios ordenados por apellido y nombre
      */
-    @Query("SELECT u FROM User u ORDER BY u.lastName ASC, u.firstName ASC")
+    @Query("SELECT u FROM User u ORDER BY u.lastName ASC, u.firstName ASC, u.id ASC")
     List<User> findAllOrderedByName();
     
     /**
@@ -78,6 +99,110 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param role Rol de los usuarios
      * @return Lista de usuarios con el rol especificado ordenados por nombre
      */
-    @Query("SELECT u FROM User u WHERE u.role = :role ORDER BY u.lastName ASC, u.firstName ASC")
+    @Query("SELECT u FROM User u WHERE u.role = :role ORDER BY u.lastName ASC, u.firstName ASC, u.id ASC")
     List<User> findByRoleOrderedByName(@Param("role") User.UserRole role);
+    
+    /**
+     * Cuenta los usuarios agrupados por rol en una sola consulta
+     * 
+     * @return Filas [rol, cantidad]
+     */
+    @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
+    List<Object[]> countGroupedByRole();
+    
+    /**
+     * Obtiene la primera página del ranking de usuarios de un rol por promedio de calificaciones.
+     * El promedio se lee del agregado del usuario en una sola consulta con LEFT JOIN.
+     * 
+     * @param role Rol de los usuarios
+     * @param scope Ámbito del agregado (USER)
+     * @param pageable Tamaño de la página
+     * @return Filas [userId, username, firstName, lastName, promedio]
+     */
+    @Query("SELECT u.id, u.username, u.firstName, u.lastName, " +
+           "CASE WHEN a.gradeCount > 0 THEN a.gradeSum / a.gradeCount ELSE 0.0 END " +
+           "FROM User u LEFT JOIN GradeAggregate a ON a.scope = :scope AND a.scopeId = u.id " +
+           "WHERE u.role = :role " +
+           "ORDER BY CASE WHEN a.gradeCount > 0 THEN a.gradeSum / a.gradeCount ELSE 0.0 END DESC, u.id ASC")
+    List<Object[]> findRankingPage(@Param("role") User.UserRole role,
+                                   @Param("scope") GradeAggregate.Scope scope,
+                                   Pageable pageable);
+    
+    /**
+     * Obtiene la página del ranking que sigue a la posición indicada (paginación por cursor)
+     * 
+     * @param role Rol de los usuarios
+     * @param scope Ámbito del agregado (USER)
+     * @param average Promedio de la última fila de la página anterior
+     * @param userId ID de la última fila de la página anterior
+     * @param pageable Tamaño de la página
+     * @return Filas [userId, username, firstName, lastName, promedio]
+     */
+    @Query("SELECT u.id, u.username, u.firstName, u.lastName, " +
+           "CASE WHEN a.gradeCount > 0 THEN a.gradeSum / a.gradeCount ELSE 0.0 END " +
+           "FROM User u LEFT JOIN GradeAggregate a ON a.scope = :scope AND a.scopeId = u.id " +
+           "WHERE u.role = :role AND (" +
+           "CASE WHEN a.gradeCount > 0 THEN a.gradeSum / a.gradeCount ELSE 0.0 END < :average OR (" +
+           "CASE WHEN a.gradeCount > 0 THEN a.gradeSum / a.gradeCount ELSE 0.0 END = :average AND u.id > :userId)) " +
+           "ORDER BY CASE WHEN a.gradeCount > 0 THEN a.gradeSum / a.gradeCount ELSE 0.0 END DESC, u.id ASC")
+    List<Object[]> findRankingPageAfter(@Param("role") User.UserRole role,
+                                        @Param("scope") GradeAggregate.Scope scope,
+                                        @Param("average") Double average,
+                                        @Param("userId") Long userId,
+                                        Pageable pageable);
+
+    /**
+     * Obtiene la primera página de usuarios ordenados por apellido y nombre
+     * 
+     * @param pageable Tamaño de la página
+     * @return Usuarios de la primera página
+     */
+    @Query("SELECT u FROM User u ORDER BY u.lastName ASC, u.firstName ASC, u.id ASC")
+    List<User> findPageOrderedByName(Pageable pageable);
+
+    /**
+     * Obtiene la página de usuarios que sigue a la posición (apellido, nombre, id) indicada
+     * 
+     * @param lastName Apellido de la última fila de la página anterior
+     * @param firstName Nombre de la última fila de la página anterior
+     * @param id ID de la última fila de la página anterior
+     * @param pageable Tamaño de la página
+     * @return Usuarios de la página siguiente
+     */
+    @Query("SELECT u FROM User u WHERE u.lastName >= :lastName AND (u.lastName > :lastName " +
+           "OR u.firstName > :firstName OR (u.firstName = :firstName AND u.id > :id)) " +
+           "ORDER BY u.lastName ASC, u.firstName ASC, u.id ASC")
+    List<User> findPageOrderedByNameAfter(@Param("lastName") String lastName,
+                                          @Param("firstName") String firstName,
+                                          @Param("id") Long id,
+                                          Pageable pageable);
+
+    /**
+     * Obtiene la primera página de usuarios con un rol ordenados por apellido y nombre
+     * 
+     * @param role Rol de los usuarios
+     * @param pageable Tamaño de la página
+     * @return Usuarios de la primera página
+     */
+    @Query("SELECT u FROM User u WHERE u.role = :role ORDER BY u.lastName ASC, u.firstName ASC, u.id ASC")
+    List<User> findPageByRoleOrderedByName(@Param("role") User.UserRole role, Pageable pageable);
+
+    /**
+     * Obtiene la página de usuarios con un rol que sigue a la posición (apellido, nombre, id) indicada
+     * 
+     * @param role Rol de los usuarios
+     * @param lastName Apellido de la última fila de la página anterior
+     * @param firstName Nombre de la última fila de la página anterior
+     * @param id ID de la última fila de la página anterior
+     * @param pageable Tamaño de la página
+     * @return Usuarios de la página siguiente
+     */
+    @Query("SELECT u FROM User u WHERE u.role = :role AND u.lastName >= :lastName AND (u.lastName > :lastName " +
+           "OR u.firstName > :firstName OR (u.firstName = :firstName AND u.id > :id)) " +
+           "ORDER BY u.lastName ASC, u.firstName ASC, u.id ASC")
+    List<User> findPageByRoleOrderedByNameAfter(@Param("role") User.UserRole role,
+                                                @Param("lastName") String lastName,
+                                                @Param("firstName") String firstName,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
 }
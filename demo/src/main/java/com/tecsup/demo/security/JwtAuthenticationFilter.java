@@ -1,6 +1,7 @@
 package com.tecsup.demo.security;
 
-import com.tecsup.demo.service.CustomUserDetailsService;
+import com.tecsup.demo.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
@@ -10,15 +11,19 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService userDetailsService;
+    private final JwtPrincipalCache principalCache;
+    private final TokenRevocationService revocationService;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, JwtPrincipalCache principalCache,
+                                   TokenRevocationService revocationService) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.revocationService = revocationService;
     }
 
     @Override
@@ -42,15 +47,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String header = request.getHeader("Authorization");
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
-            String username = jwtUtil.extractUsername(token);
-
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateToken(token, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+            Optional<Claims> claims = jwtUtil.verify(token);
+            // Un token revocado se trata como inválido; la consulta se resuelve en memoria
+            boolean revoked = claims.isPresent() && claims.get().getId() != null
+                    && revocationService.isRevoked(claims.get().getId());
+
+            if (claims.isPresent() && !revoked && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // La firma y la expiración ya se verificaron; el usuario se busca por el sujeto del token
+                UserDetails userDetails = principalCache.get(claims.get().getSubject(), claims.get().getIssuedAt());
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
 
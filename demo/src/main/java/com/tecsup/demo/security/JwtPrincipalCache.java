@@ -0,0 +1,102 @@
+package com.tecsup.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tecsup.demo.entity.User;
+import com.tecsup.demo.event.UserChangedEvent;
+import com.tecsup.demo.service.CustomUserDetailsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache acotada de los usuarios autenticados por JWT, para no consultar la base de datos en cada solicitud.
+ * La clave combina el nombre de usuario y la fecha de emisión del token, y las entradas viven a lo sumo
+ * lo mismo que un token (jwt.expiration). Las entradas de un usuario se descartan cuando UserService
+ * lo modifica o elimina, de modo que un cambio de rol se aplica en la siguiente solicitud.
+ *
+ * Una carga que empezó antes de confirmarse un cambio puede terminar después con el estado anterior.
+ * Por eso cada cambio asigna al usuario una generación nueva y una carga solo se guarda si el usuario
+ * no cambió de generación desde que empezó; la comprobación y el guardado comparten un cerrojo con
+ * el cambio de generación, así que una carga obsoleta nunca queda en la cache.
+ * El inicio de sesión no usa esta cache: siempre verifica la contraseña contra la base de datos.
+ */
+@Component
+public class JwtPrincipalCache {
+
+    private static final Duration GENERATION_RETENTION = Duration.ofMinutes(10);
+
+    private final CustomUserDetailsService userDetailsService;
+    private final Cache<String, UserDetails> principals;
+    // Generación del último cambio de cada usuario; basta recordarla mientras pueda haber una carga en curso
+    private final Cache<Long, Long> generations = Caffeine.newBuilder()
+            .expireAfterWrite(GENERATION_RETENTION)
+            .build();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object generationLock = new Object();
+
+    public JwtPrincipalCache(CustomUserDetailsService userDetailsService,
+                             @Value("${jwt.expiration}") long expirationSeconds,
+                             @Value("${security.principal-cache.max-size:10000}") long maxSize) {
+        this.userDetailsService = userDetailsService;
+        this.principals = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(expirationSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Obtiene el usuario de un token, cargándolo de la base de datos solo si no está en cache
+     *
+     * @param username Nombre de usuario del token
+     * @param issuedAt Fecha de emisión del token; puede ser null
+     * @return Usuario autenticado
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException Si el usuario no existe
+     */
+    public UserDetails get(String username, Date issuedAt) {
+        String key = username + ":" + (issuedAt != null ? issuedAt.getTime() : 0L);
+        UserDetails cached = principals.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long startedAt = sequence.get();
+        UserDetails loaded = userDetailsService.loadUserByUsername(username);
+        if (loaded instanceof User user) {
+            synchronized (generationLock) {
+                Long generation = generations.getIfPresent(user.getId());
+                if (generation == null || generation <= startedAt) {
+                    principals.put(key, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Descarta las entradas de los usuarios modificados una vez confirmado el cambio y les asigna una
+     * generación nueva, para que una carga concurrente que leyó el estado anterior no lo vuelva a guardar
+     *
+     * @param event Evento con los IDs de los usuarios modificados
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Set<Long> userIds = event.getUserIds();
+        synchronized (generationLock) {
+            long generation = sequence.incrementAndGet();
+            for (Long userId : userIds) {
+                generations.put(userId, generation);
+            }
+        }
+        // Los cambios de usuarios son poco frecuentes; recorrer la cache evita mantener un índice por ID
+        principals.asMap().values().removeIf(principal ->
+                principal instanceof User user && userIds.contains(user.getId()));
+    }
+}
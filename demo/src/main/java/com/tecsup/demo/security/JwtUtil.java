@@ -1,5 +1,8 @@
 package com.tecsup.demo.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tecsup.demo.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,41 +11,86 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
+/**
+ * Genera y verifica los tokens JWT.
+ * La clave y el parser se construyen una sola vez (el parser es inmutable y seguro entre hilos).
+ * Los tokens ya verificados se guardan en una cache acotada para no repetir la verificación HMAC
+ * de los tokens que llegan en cada solicitud; la expiración se vuelve a comprobar en cada acierto.
+ * Con jwt.verified-cache.max-size=0 la cache se desactiva y cada token se verifica completo.
+ * Los tokens de un User llevan su rol y su ID como claims, para leerlos sin consultar la base de datos.
+ * Cada token lleva un jti único para poder revocarlo (ver TokenRevocationService).
+ */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "uid";
 
-    @Value("${jwt.expiration}")
-    private long expiration;
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final long expiration;
+    private final Cache<String, Claims> verifiedTokens;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") long expiration,
+                   @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.expiration = expiration;
+        this.verifiedTokens = verifiedCacheMaxSize > 0
+                ? Caffeine.newBuilder().maximumSize(verifiedCacheMaxSize).<String, Claims>build()
+                : null;
     }
 
     public String generateToken(UserDetails userDetails) {
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder();
+        if (userDetails instanceof User user) {
+            builder.claim(ROLE_CLAIM, user.getRole() != null ? user.getRole().name() : null)
+                    .claim(USER_ID_CLAIM, user.getId());
+        }
+        return builder
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration * 1000))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build()
-                .parseClaimsJws(token).getBody().getSubject();
-    }
+    /**
+     * Verifica la firma y la expiración de un token analizándolo una sola vez
+     *
+     * @param token Token JWT
+     * @return Claims del token, o vacío si el token es inválido o expiró
+     */
+    public Optional<Claims> verify(String token) {
+        Claims cached = verifiedTokens != null ? verifiedTokens.getIfPresent(token) : null;
+        if (cached != null) {
+            if (isExpired(cached)) {
+                verifiedTokens.invalidate(token);
+                return Optional.empty();
+            }
+            return Optional.of(cached);
+        }
 
-    public boolean validateToken(String token, UserDetails userDetails) {
-        return userDetails.getUsername().equals(extractUsername(token)) &&
-                !isTokenExpired(token);
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        // La cache guarda el token completo: un acierto implica exactamente el mismo encabezado, contenido y firma
+        if (verifiedTokens != null) {
+            verifiedTokens.put(token, claims);
+        }
+        return Optional.of(claims);
     }
 
-    private boolean isTokenExpired(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build()
-                .parseClaimsJws(token).getBody().getExpiration().before(new Date());
+    private static boolean isExpired(Claims claims) {
+        Date exp = claims.getExpiration();
+        return exp != null && exp.before(new Date());
     }
 }
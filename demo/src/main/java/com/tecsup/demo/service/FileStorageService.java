@@ -0,0 +1,154 @@
+package com.tecsup.demo.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Almacén local de archivos direccionado por contenido.
+ * Cada archivo se guarda una sola vez bajo su hash SHA-256 (raíz/ab/cd/abcd…), de modo que
+ * subir dos veces el mismo contenido no ocupa espacio adicional. La subida se copia por bloques
+ * a un archivo temporal con un FileChannel mientras se calcula el hash, sin cargar el archivo
+ * completo en memoria, y luego se mueve a su ubicación definitiva.
+ */
+@Service
+public class FileStorageService {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Path tempDir;
+    private final long maxSizeBytes;
+
+    public FileStorageService(@Value("${storage.files.root:./data/files}") String root,
+                              @Value("${storage.files.max-size-bytes:52428800}") long maxSizeBytes) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tempDir = this.root.resolve("tmp");
+        this.maxSizeBytes = maxSizeBytes;
+        try {
+            Files.createDirectories(tempDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio de archivos " + this.root, e);
+        }
+    }
+
+    /**
+     * Guarda el contenido de un flujo en el almacén
+     *
+     * @param content Contenido del archivo; no se cierra
+     * @return Archivo guardado con su hash y tamaño
+     * @throws IOException Si falla la lectura o la escritura
+     * @throws IllegalArgumentException Si el archivo está vacío o supera el tamaño máximo
+     */
+    public StoredFile store(InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(tempDir, "upload-", ".part");
+        try {
+            long size = 0;
+            ReadableByteChannel source = Channels.newChannel(content);
+            try (FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    size += buffer.remaining();
+                    if (size > maxSizeBytes) {
+                        throw new IllegalArgumentException("El archivo supera el tamaño máximo de " + maxSizeBytes + " bytes");
+                    }
+                    buffer.mark();
+                    digest.update(buffer);
+                    buffer.reset();
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                target.force(false);
+            }
+            if (size == 0) {
+                throw new IllegalArgumentException("El archivo está vacío");
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path destination = pathOf(hash);
+            boolean deduplicated = Files.exists(destination);
+            if (!deduplicated) {
+                Files.createDirectories(destination.getParent());
+                try {
+                    Files.move(temp, destination, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Otra subida con el mismo contenido terminó primero
+                    deduplicated = true;
+                }
+            }
+            return new StoredFile(hash, size, deduplicated);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Busca un archivo del almacén por su hash
+     *
+     * @param hash Hash SHA-256 en hexadecimal (minúsculas)
+     * @return Ruta del archivo si existe
+     */
+    public Optional<Path> find(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(hash);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Archivo guardado en el almacén
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class StoredFile {
+
+        /**
+         * Hash SHA-256 del contenido en hexadecimal
+         */
+        private final String hash;
+        private final long size;
+
+        /**
+         * true si el contenido ya estaba almacenado y no se escribió de nuevo
+         */
+        private final boolean deduplicated;
+    }
+}
@@ -0,0 +1,293 @@
+package com.tecsup.demo.service;
+
+import com.tecsup.demo.entity.GradeAggregate;
+import com.tecsup.demo.entity.GradeHistogram;
+import com.tecsup.demo.entity.Submission;
+import com.tecsup.demo.event.SubmissionChange;
+import com.tecsup.demo.event.SubmissionChangedEvent;
+import com.tecsup.demo.repository.GradeAggregateRepository;
+import com.tecsup.demo.repository.SubmissionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Servicio que mantiene los agregados de calificaciones por estudiante y por tarea.
+ * Los agregados se actualizan en la misma transacción que guarda o elimina la entrega.
+ * La fila de un estudiante o tarea sin agregado se crea con INSERT ... ON CONFLICT DO UPDATE antes de
+ * bloquearla, de modo que dos primeras calificaciones concurrentes no chocan con la clave única: la segunda
+ * espera a que la primera confirme y continúa sobre la fila ya creada. Las filas se crean en orden de ID
+ * para que dos transacciones no se esperen mutuamente.
+ * La reconstrucción recorre los estudiantes o tareas por bloques de IDs, cada uno bloqueado y recalculado
+ * en su propia transacción corta, para que las calificaciones solo esperen al bloque que tocan.
+ */
+@Service
+@Transactional
+public class GradeAggregateService {
+
+    private final GradeAggregateRepository aggregateRepository;
+    private final SubmissionRepository submissionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildChunkSize;
+
+    public GradeAggregateService(GradeAggregateRepository aggregateRepository, SubmissionRepository submissionRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${statistics.aggregates.rebuild-chunk-size:500}") int rebuildChunkSize) {
+        this.aggregateRepository = aggregateRepository;
+        this.submissionRepository = submissionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    /**
+     * Busca el agregado de calificaciones de un estudiante
+     *
+     * @param userId ID del estudiante
+     * @return Optional con el agregado si existe
+     */
+    @Transactional(readOnly = true)
+    public Optional<GradeAggregate> findByUser(Long userId) {
+        return aggregateRepository.findByScopeAndScopeId(GradeAggregate.Scope.USER, userId);
+    }
+
+    /**
+     * Busca el agregado de calificaciones de una tarea
+     *
+     * @param taskId ID de la tarea
+     * @return Optional con el agregado si existe
+     */
+    @Transactional(readOnly = true)
+    public Optional<GradeAggregate> findByTask(Long taskId) {
+        return aggregateRepository.findByScopeAndScopeId(GradeAggregate.Scope.TASK, taskId);
+    }
+
+    /**
+     * Aplica a los agregados los cambios de calificación de un lote de entregas.
+     * Bloquea cada fila afectada una sola vez, aunque el lote toque la misma tarea muchas veces.
+     *
+     * @param event Evento con los cambios de entregas
+     */
+    @EventListener
+    public void onSubmissionChanged(SubmissionChangedEvent event) {
+        List<SubmissionChange> changes = event.getChanges().stream()
+                .filter(SubmissionChange::affectsGrade)
+                .toList();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Map<GradeAggregate.Scope, Set<Long>> touched = new EnumMap<>(GradeAggregate.Scope.class);
+        for (SubmissionChange change : changes) {
+            collect(touched, change.getBefore());
+            collect(touched, change.getAfter());
+        }
+
+        for (Map.Entry<GradeAggregate.Scope, Set<Long>> entry : touched.entrySet()) {
+            applyScope(entry.getKey(), entry.getValue(), changes);
+        }
+    }
+
+    /**
+     * Reconstruye todos los agregados a partir de la tabla de entregas para corregir desviaciones
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void rebuildAll() {
+        rebuildScope(GradeAggregate.Scope.USER);
+        rebuildScope(GradeAggregate.Scope.TASK);
+    }
+
+    private void applyScope(GradeAggregate.Scope scope, Set<Long> scopeIds, List<SubmissionChange> changes) {
+        Map<Long, GradeAggregate> aggregates = new HashMap<>();
+        for (GradeAggregate aggregate : aggregateRepository.findForUpdate(scope, scopeIds)) {
+            aggregates.put(aggregate.getScopeId(), aggregate);
+        }
+
+        // Solo necesitan fila los estudiantes o tareas que reciben una calificación
+        Set<Long> missing = new TreeSet<>();
+        for (SubmissionChange change : changes) {
+            Submission.Snapshot after = change.getAfter();
+            if (after != null && after.getGrade() != null && !aggregates.containsKey(scopeId(scope, after))) {
+                missing.add(scopeId(scope, after));
+            }
+        }
+        if (!missing.isEmpty()) {
+            createMissing(scope, missing);
+            for (GradeAggregate aggregate : aggregateRepository.findForUpdate(scope, missing)) {
+                aggregates.put(aggregate.getScopeId(), aggregate);
+            }
+        }
+
+        Set<Long> staleRanges = new HashSet<>();
+        for (SubmissionChange change : changes) {
+            Submission.Snapshot before = change.getBefore();
+            if (before != null && before.getGrade() != null) {
+                GradeAggregate aggregate = aggregates.get(scopeId(scope, before));
+                if (aggregate != null && aggregate.remove(before.getGrade())) {
+                    staleRanges.add(aggregate.getScopeId());
+                }
+            }
+            Submission.Snapshot after = change.getAfter();
+            if (after != null && after.getGrade() != null) {
+                Long id = scopeId(scope, after);
+                aggregates.get(id).add(after.getGrade());
+            }
+        }
+
+        for (Long id : staleRanges) {
+            GradeAggregate aggregate = aggregates.get(id);
+            if (aggregate.getGradeCount() > 0) {
+                Object[] range = firstRow(scope == GradeAggregate.Scope.USER
+                        ? submissionRepository.findGradeRangeByUserId(id)
+                        : submissionRepository.findGradeRangeByTaskId(id));
+                aggregate.setMinGrade(range != null ? (Double) range[0] : null);
+                aggregate.setMaxGrade(range != null ? (Double) range[1] : null);
+            }
+        }
+
+        aggregateRepository.saveAll(aggregates.values());
+    }
+
+    /**
+     * Reconstruye los agregados de un ámbito por bloques de IDs en orden ascendente: los que ya tienen
+     * fila y los que tienen entregas calificadas. Cada bloque usa su propia transacción.
+     */
+    private void rebuildScope(GradeAggregate.Scope scope) {
+        Set<Long> ids = new TreeSet<>(aggregateRepository.findScopeIds(scope));
+        ids.addAll(scope == GradeAggregate.Scope.USER
+                ? submissionRepository.findGradedUserIds()
+                : submissionRepository.findGradedTaskIds());
+
+        List<Long> chunk = new ArrayList<>(rebuildChunkSize);
+        for (Long id : ids) {
+            chunk.add(id);
+            if (chunk.size() == rebuildChunkSize) {
+                rebuildChunk(scope, chunk);
+                chunk = new ArrayList<>(rebuildChunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            rebuildChunk(scope, chunk);
+        }
+    }
+
+    /**
+     * Reconstruye un bloque de agregados. Los totales se calculan después de bloquear las filas:
+     * una calificación confirmada antes del bloqueo queda incluida, y una posterior espera al bloqueo
+     * y se aplica sobre los totales nuevos.
+     */
+    private void rebuildChunk(GradeAggregate.Scope scope, List<Long> scopeIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, GradeAggregate> existing = new HashMap<>();
+            for (GradeAggregate aggregate : aggregateRepository.findForUpdate(scope, scopeIds)) {
+                existing.put(aggregate.getScopeId(), aggregate);
+            }
+
+            List<Object[]> summaries = summarize(scope, scopeIds);
+            Set<Long> missing = new TreeSet<>();
+            for (Object[] row : summaries) {
+                if (!existing.containsKey((Long) row[0])) {
+                    missing.add((Long) row[0]);
+                }
+            }
+            if (!missing.isEmpty()) {
+                createMissing(scope, missing);
+                for (GradeAggregate aggregate : aggregateRepository.findForUpdate(scope, missing)) {
+                    existing.put(aggregate.getScopeId(), aggregate);
+                }
+                // Una calificación pudo confirmarse antes de bloquear las filas nuevas: se recalcula con todo bloqueado
+                summaries = summarize(scope, scopeIds);
+            }
+            Map<Long, GradeHistogram> histograms = toHistograms(scope == GradeAggregate.Scope.USER
+                    ? submissionRepository.countGradeBucketsByUsers(scopeIds)
+                    : submissionRepository.countGradeBucketsByTasks(scopeIds));
+
+            List<GradeAggregate> toSave = new ArrayList<>();
+            for (Object[] row : summaries) {
+                Long id = (Long) row[0];
+                GradeAggregate aggregate = existing.remove(id);
+                if (aggregate == null) {
+                    // Fila creada por una calificación concurrente después del recálculo; la corrige la siguiente reconstrucción
+                    continue;
+                }
+                aggregate.replace(
+                        ((Number) row[1]).longValue(),
+                        ((Number) row[2]).doubleValue(),
+                        ((Number) row[3]).doubleValue(),
+                        (Double) row[4],
+                        (Double) row[5],
+                        histograms.getOrDefault(id, new GradeHistogram())
+                );
+                toSave.add(aggregate);
+            }
+
+            // Los agregados sin entregas calificadas quedan en cero
+            for (GradeAggregate orphan : existing.values()) {
+                orphan.reset();
+                toSave.add(orphan);
+            }
+
+            aggregateRepository.saveAll(toSave);
+        });
+    }
+
+    /**
+     * Crea en cero los agregados que faltan, en orden de ID
+     */
+    private void createMissing(GradeAggregate.Scope scope, Set<Long> scopeIds) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Long id : scopeIds) {
+            aggregateRepository.insertIfAbsent(scope, id, now);
+        }
+    }
+
+    private List<Object[]> summarize(GradeAggregate.Scope scope, Collection<Long> scopeIds) {
+        return scope == GradeAggregate.Scope.USER
+                ? submissionRepository.summarizeGradesByUsers(scopeIds)
+                : submissionRepository.summarizeGradesByTasks(scopeIds);
+    }
+
+    /**
+     * Convierte filas [id, cubeta, cantidad] en un histograma por ID
+     */
+    private static Map<Long, GradeHistogram> toHistograms(List<Object[]> rows) {
+        Map<Long, GradeHistogram> histograms = new HashMap<>();
+        for (Object[] row : rows) {
+            int bucket = GradeHistogram.bucketOf(((Number) row[1]).doubleValue());
+            histograms.computeIfAbsent((Long) row[0], key -> new GradeHistogram())
+                    .setCount(bucket, ((Number) row[2]).longValue());
+        }
+        return histograms;
+    }
+
+    private static void collect(Map<GradeAggregate.Scope, Set<Long>> touched, Submission.Snapshot snapshot) {
+        if (snapshot == null || snapshot.getGrade() == null) {
+            return;
+        }
+        touched.computeIfAbsent(GradeAggregate.Scope.USER, key -> new HashSet<>()).add(snapshot.getUserId());
+        touched.computeIfAbsent(GradeAggregate.Scope.TASK, key -> new HashSet<>()).add(snapshot.getTaskId());
+    }
+
+    private static Long scopeId(GradeAggregate.Scope scope, Submission.Snapshot snapshot) {
+        return scope == GradeAggregate.Scope.USER ? snapshot.getUserId() : snapshot.getTaskId();
+    }
+
+    private static Object[] firstRow(List<Object[]> rows) {
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.tecsup.demo.service;
+
+import com.tecsup.demo.dto.GradeDistributionDTO;
+import com.tecsup.demo.entity.GradeAggregate;
+import com.tecsup.demo.entity.GradeHistogram;
+import com.tecsup.demo.repository.GradeAggregateRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Servicio de distribución de notas.
+ * Usa los histogramas mantenidos en los agregados de calificaciones, por lo que
+ * la mediana y el percentil 90 se obtienen sin leer las entregas; las vistas de
+ * varias tareas se calculan combinando sus histogramas.
+ */
+@Service
+@Transactional(readOnly = true)
+public class GradeDistributionService {
+
+    private final GradeAggregateRepository aggregateRepository;
+
+    public GradeDistributionService(GradeAggregateRepository aggregateRepository) {
+        this.aggregateRepository = aggregateRepository;
+    }
+
+    /**
+     * Obtiene la distribución de notas de una tarea
+     *
+     * @param taskId ID de la tarea
+     * @return Distribución de notas de la tarea
+     */
+    public GradeDistributionDTO getTaskDistribution(Long taskId) {
+        return toDistribution(aggregateRepository.findByScopeAndScopeId(GradeAggregate.Scope.TASK, taskId));
+    }
+
+    /**
+     * Obtiene la distribución de notas de un estudiante
+     *
+     * @param userId ID del estudiante
+     * @return Distribución de notas del estudiante
+     */
+    public GradeDistributionDTO getUserDistribution(Long userId) {
+        return toDistribution(aggregateRepository.findByScopeAndScopeId(GradeAggregate.Scope.USER, userId));
+    }
+
+    /**
+     * Obtiene la distribución combinada de un conjunto de tareas
+     *
+     * @param taskIds IDs de las tareas; null o vacío combina todas las tareas
+     * @return Distribución combinada
+     */
+    public GradeDistributionDTO getTasksDistribution(Collection<Long> taskIds) {
+        List<GradeAggregate> aggregates = taskIds == null || taskIds.isEmpty()
+                ? aggregateRepository.findByScope(GradeAggregate.Scope.TASK)
+                : aggregateRepository.findByScopeAndScopeIdIn(GradeAggregate.Scope.TASK, taskIds);
+        return merge(aggregates);
+    }
+
+    private static GradeDistributionDTO toDistribution(Optional<GradeAggregate> aggregate) {
+        return merge(aggregate.map(List::of).orElse(List.of()));
+    }
+
+    private static GradeDistributionDTO merge(List<GradeAggregate> aggregates) {
+        GradeHistogram histogram = new GradeHistogram();
+        long count = 0;
+        double sum = 0.0;
+        Double lowest = null;
+        Double highest = null;
+
+        for (GradeAggregate aggregate : aggregates) {
+            if (aggregate.getGradeCount() <= 0) {
+                continue;
+            }
+            histogram.merge(aggregate.getHistogram());
+            count += aggregate.getGradeCount();
+            sum += aggregate.getGradeSum();
+            lowest = lowest == null ? aggregate.getMinGrade() : Math.min(lowest, aggregate.getMinGrade());
+            highest = highest == null ? aggregate.getMaxGrade() : Math.max(highest, aggregate.getMaxGrade());
+        }
+
+        return new GradeDistributionDTO(
+                count,
+                count > 0 ? sum / count : null,
+                lowest,
+                highest,
+                clamp(histogram.percentile(0.5), lowest, highest),
+                clamp(histogram.percentile(0.9), lowest, highest),
+                histogram.getCounts()
+        );
+    }
+
+    /**
+     * Ajusta un percentil estimado al rango real de notas conocido
+     */
+    private static Double clamp(Double value, Double lowest, Double highest) {
+        if (value == null || lowest == null || highest == null) {
+            return value;
+        }
+        return Math.max(lowest, Math.min(highest, value));
+    }
+}
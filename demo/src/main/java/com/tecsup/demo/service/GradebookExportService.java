@@ -0,0 +1,256 @@
+package com.tecsup.demo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tecsup.demo.entity.Submission;
+import com.tecsup.demo.entity.User;
+import com.tecsup.demo.repository.SubmissionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Servicio de exportación de la libreta de notas (estudiantes × tareas).
+ * Recorre la consulta como stream dentro de una transacción de solo lectura y escribe cada fila
+ * apenas se lee, de modo que la memoria usada no depende de la cantidad de filas y los primeros
+ * bytes salen antes de que termine la consulta.
+ * En CSV, los textos que empiezan con =, +, -, @, tabulador o retorno de carro se anteponen con un apóstrofo
+ * para que una hoja de cálculo no los interprete como fórmula.
+ */
+@Service
+public class GradebookExportService {
+
+    private static final String[] COLUMNS = {
+            "userId", "username", "firstName", "lastName", "taskId", "taskTitle", "status", "grade", "submissionDate"
+    };
+
+    /**
+     * Cantidad de filas escritas entre cada envío al cliente
+     */
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final SubmissionRepository submissionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+
+    public GradebookExportService(SubmissionRepository submissionRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  @Value("${statistics.export.timeout-ms:1800000}") long timeoutMillis) {
+        this.submissionRepository = submissionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Tiempo máximo de una exportación; se aplica como timeout de la respuesta asíncrona que la transmite
+     *
+     * @return Timeout en milisegundos
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Escribe la libreta de notas en el formato indicado
+     *
+     * @param format Formato de exportación
+     * @param output Flujo de salida de la respuesta
+     */
+    public void export(ExportFormat format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        RowWriter rowWriter = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+
+        // La cabecera sale de inmediato, antes de ejecutar la consulta
+        rowWriter.writeHeader();
+        writer.flush();
+
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = submissionRepository.streamGradebook(User.UserRole.STUDENT)) {
+                    Iterator<Object[]> iterator = rows.iterator();
+                    int written = 0;
+                    while (iterator.hasNext()) {
+                        rowWriter.writeRow(iterator.next());
+                        if (++written % FLUSH_EVERY_ROWS == 0) {
+                            writer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rowWriter.finish();
+        writer.flush();
+    }
+
+    /**
+     * Formatos de exportación disponibles
+     */
+    public enum ExportFormat {
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"),
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        ExportFormat(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Obtiene el formato a partir del parámetro de la solicitud
+         *
+         * @param value Nombre del formato sin distinguir mayúsculas (csv o ndjson)
+         * @return Formato de exportación
+         */
+        public static ExportFormat fromParameter(String value) {
+            for (ExportFormat format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Formato de exportación no soportado: " + value);
+        }
+    }
+
+    private interface RowWriter {
+
+        void writeHeader() throws IOException;
+
+        void writeRow(Object[] row) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void writeRow(Object[] row) throws IOException {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeField(row[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        private void writeField(Object value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            String text = value instanceof Submission.SubmissionStatus status ? status.name() : value.toString();
+            if (value instanceof CharSequence && isFormulaPrefix(text)) {
+                text = "'" + text;
+            }
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        /**
+         * Indica si una hoja de cálculo interpretaría el texto como fórmula
+         */
+        private static boolean isFormulaPrefix(String text) {
+            if (text.isEmpty()) {
+                return false;
+            }
+            char first = text.charAt(0);
+            return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            // El generador vuelca al Writer en cada fila, pero el envío al cliente lo controla el servicio
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void writeHeader() {
+        }
+
+        @Override
+        public void writeRow(Object[] row) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], (Long) row[0]);
+            generator.writeStringField(COLUMNS[1], (String) row[1]);
+            generator.writeStringField(COLUMNS[2], (String) row[2]);
+            generator.writeStringField(COLUMNS[3], (String) row[3]);
+            generator.writeNumberField(COLUMNS[4], (Long) row[4]);
+            generator.writeStringField(COLUMNS[5], (String) row[5]);
+            generator.writeStringField(COLUMNS[6], row[6] != null ? ((Submission.SubmissionStatus) row[6]).name() : null);
+            if (row[7] != null) {
+                generator.writeNumberField(COLUMNS[7], (Double) row[7]);
+            } else {
+                generator.writeNullField(COLUMNS[7]);
+            }
+            generator.writeStringField(COLUMNS[8], row[8] != null ? ((LocalDateTime) row[8]).toString() : null);
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,548 @@
+package com.tecsup.demo.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tecsup.demo.dto.ImportJobDTO;
+import com.tecsup.demo.dto.SubmissionDTO;
+import com.tecsup.demo.dto.TaskDTO;
+import com.tecsup.demo.dto.UserDTO;
+import com.tecsup.demo.entity.Submission;
+import com.tecsup.demo.entity.Task;
+import com.tecsup.demo.entity.User;
+import com.tecsup.demo.repository.SubmissionRepository;
+import com.tecsup.demo.repository.TaskRepository;
+import com.tecsup.demo.repository.UserRepository;
+import com.tecsup.demo.util.CsvReader;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de importación masiva desde archivos CSV.
+ * El archivo se guarda en disco y se procesa en segundo plano, leyendo un registro a la vez
+ * y trabajando por bloques: cada bloque se valida, se verifica la unicidad con consultas IN,
+ * se calculan los hashes de contraseñas en paralelo y se guarda en una transacción propia
+ * con INSERT agrupados en lotes JDBC. El progreso se consulta por el ID del trabajo.
+ */
+@Service
+public class ImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    private final UserRepository userRepository;
+    private final TaskRepository taskRepository;
+    private final SubmissionRepository submissionRepository;
+    private final UserService userService;
+    private final TaskService taskService;
+    private final SubmissionService submissionService;
+    private final PasswordHashingService passwordHashingService;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, ImportJob> jobs;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public ImportService(UserRepository userRepository,
+                         TaskRepository taskRepository,
+                         SubmissionRepository submissionRepository,
+                         UserService userService,
+                         TaskService taskService,
+                         SubmissionService submissionService,
+                         PasswordHashingService passwordHashingService,
+                         TransactionTemplate transactionTemplate,
+                         Validator validator,
+                         ObjectMapper objectMapper,
+                         @Value("${import.threads:2}") int threads,
+                         @Value("${import.queue-capacity:10}") int queueCapacity,
+                         @Value("${import.chunk-size:500}") int chunkSize,
+                         @Value("${import.max-reported-errors:100}") int maxReportedErrors,
+                         @Value("${import.job-retention-minutes:60}") long jobRetentionMinutes) {
+        this.userRepository = userRepository;
+        this.taskRepository = taskRepository;
+        this.submissionRepository = submissionRepository;
+        this.userService = userService;
+        this.taskService = taskService;
+        this.submissionService = submissionService;
+        this.passwordHashingService = passwordHashingService;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "csv-import-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(jobRetentionMinutes))
+                .build();
+    }
+
+    /**
+     * Recibe un archivo CSV y encola su importación
+     *
+     * @param type Tipo de datos del archivo
+     * @param file Archivo CSV (UTF-8, con fila de encabezados)
+     * @return Estado inicial del trabajo
+     * @throws IOException Si no se puede guardar el archivo en disco
+     * @throws RejectedExecutionException Si la cola de importaciones está llena
+     */
+    public ImportJobDTO submit(ImportType type, MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("El archivo está vacío");
+        }
+
+        Path path = Files.createTempFile("import-", ".csv");
+        try {
+            file.transferTo(path);
+            ImportJob job = new ImportJob(UUID.randomUUID().toString(), type);
+            jobs.put(job.id, job);
+            try {
+                executor.execute(() -> run(job, path));
+            } catch (RejectedExecutionException e) {
+                // El trabajo nunca se ejecutará: no debe quedar visible como QUEUED
+                jobs.invalidate(job.id);
+                throw e;
+            }
+            return job.toDTO();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    /**
+     * Obtiene el estado de un trabajo de importación
+     *
+     * @param id ID del trabajo
+     * @return Optional con el estado si el trabajo existe
+     */
+    public Optional<ImportJobDTO> findJob(String id) {
+        return Optional.ofNullable(jobs.getIfPresent(id)).map(ImportJob::toDTO);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ImportJob job, Path path) {
+        job.start();
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+            Map<Integer, String> columns = readHeader(reader, job.type);
+            int minFields = columns.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                if (fields.stream().allMatch(String::isBlank)) {
+                    continue;
+                }
+                long line = reader.getRecordLine();
+                if (fields.size() < minFields) {
+                    job.processed(1);
+                    job.fail(line, "Cantidad de columnas incorrecta");
+                    continue;
+                }
+
+                Map<String, String> values = new HashMap<>();
+                for (Map.Entry<Integer, String> column : columns.entrySet()) {
+                    String value = fields.get(column.getKey()).trim();
+                    if (!value.isEmpty()) {
+                        values.put(column.getValue(), value);
+                    }
+                }
+                chunk.add(new Row(line, values));
+
+                if (chunk.size() == chunkSize) {
+                    processChunk(job, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(job, chunk);
+            }
+            job.finish(ImportJobDTO.Status.COMPLETED, null);
+        } catch (Exception e) {
+            log.warn("Importación {} de {} fallida", job.id, job.type, e);
+            job.finish(ImportJobDTO.Status.FAILED, e.getMessage());
+        } finally {
+            jobs.put(job.id, job);
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("No se pudo eliminar el archivo temporal {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Lee la fila de encabezados y la asocia con las propiedades del tipo importado
+     */
+    private Map<Integer, String> readHeader(CsvReader reader, ImportType type) throws IOException {
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new IllegalArgumentException("El archivo no tiene encabezados");
+        }
+
+        Map<String, String> known = type.columns.stream()
+                .collect(Collectors.toMap(column -> column.toLowerCase(Locale.ROOT), Function.identity()));
+        Map<Integer, String> columns = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+            String property = known.get(name);
+            if (property != null) {
+                columns.put(i, property);
+            }
+        }
+
+        List<String> missing = type.required.stream()
+                .filter(required -> !columns.containsValue(required))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Faltan columnas obligatorias: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private void processChunk(ImportJob job, List<Row> rows) {
+        job.processed(rows.size());
+        switch (job.type) {
+            case USERS -> importUsers(job, rows);
+            case TASKS -> importTasks(job, rows);
+            case SUBMISSIONS -> importSubmissions(job, rows);
+        }
+    }
+
+    private void importUsers(ImportJob job, List<Row> rows) {
+        List<Row> accepted = new ArrayList<>();
+        List<UserDTO> dtos = new ArrayList<>();
+        for (Row row : rows) {
+            UserDTO dto = convert(job, row, UserDTO.class);
+            if (dto == null) {
+                continue;
+            }
+            if (!job.seen.add("username:" + dto.getUsername())) {
+                job.fail(row.line, "Nombre de usuario repetido en el archivo");
+            } else if (!job.seen.add("email:" + dto.getEmail())) {
+                job.fail(row.line, "Email repetido en el archivo");
+            } else {
+                accepted.add(row);
+                dtos.add(dto);
+            }
+        }
+        if (dtos.isEmpty()) {
+            return;
+        }
+
+        // Una consulta IN por bloque en lugar de dos búsquedas por usuario
+        Set<String> existingUsernames = new HashSet<>(userRepository.findExistingUsernames(
+                dtos.stream().map(UserDTO::getUsername).toList()));
+        Set<String> existingEmails = new HashSet<>(userRepository.findExistingEmails(
+                dtos.stream().map(UserDTO::getEmail).toList()));
+
+        List<UserDTO> toCreate = new ArrayList<>();
+        List<Row> toCreateRows = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            UserDTO dto = dtos.get(i);
+            if (existingUsernames.contains(dto.getUsername())) {
+                job.fail(accepted.get(i).line, "El nombre de usuario ya existe");
+            } else if (existingEmails.contains(dto.getEmail())) {
+                job.fail(accepted.get(i).line, "El email ya existe");
+            } else {
+                toCreate.add(dto);
+                toCreateRows.add(accepted.get(i));
+            }
+        }
+        if (toCreate.isEmpty()) {
+            return;
+        }
+
+        // Los hashes se calculan fuera de la transacción para no retener la conexión durante el trabajo de CPU
+        List<String> hashes = passwordHashingService.encodeAll(toCreate.stream().map(UserDTO::getPassword).toList());
+        List<User> users = new ArrayList<>(toCreate.size());
+        for (int i = 0; i < toCreate.size(); i++) {
+            UserDTO dto = toCreate.get(i);
+            User user = new User();
+            user.setUsername(dto.getUsername());
+            user.setPassword(hashes.get(i));
+            user.setEmail(dto.getEmail());
+            user.setFirstName(dto.getFirstName());
+            user.setLastName(dto.getLastName());
+            user.setPhone(dto.getPhone());
+            user.setRole(dto.getRole());
+            users.add(user);
+        }
+        write(job, toCreateRows, () -> userService.saveAll(users));
+    }
+
+    private void importTasks(ImportJob job, List<Row> rows) {
+        List<Row> accepted = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>();
+        for (Row row : rows) {
+            TaskDTO dto = convert(job, row, TaskDTO.class);
+            if (dto == null) {
+                continue;
+            }
+            Task task = new Task();
+            task.setTitle(dto.getTitle());
+            task.setDescription(dto.getDescription());
+            task.setPublicationDate(dto.getPublicationDate());
+            task.setDueDate(dto.getDueDate());
+            task.setStatus(dto.getStatus());
+            task.setMaxGrade(dto.getMaxGrade());
+            accepted.add(row);
+            tasks.add(task);
+        }
+        if (!tasks.isEmpty()) {
+            write(job, accepted, () -> taskService.saveAll(tasks));
+        }
+    }
+
+    private void importSubmissions(ImportJob job, List<Row> rows) {
+        List<Row> accepted = new ArrayList<>();
+        List<SubmissionDTO> dtos = new ArrayList<>();
+        for (Row row : rows) {
+            SubmissionDTO dto = convert(job, row, SubmissionDTO.class);
+            if (dto == null) {
+                continue;
+            }
+            if (!job.seen.add("submission:" + dto.getUserId() + ":" + dto.getTaskId())) {
+                job.fail(row.line, "Entrega repetida en el archivo para el mismo usuario y tarea");
+            } else {
+                accepted.add(row);
+                dtos.add(dto);
+            }
+        }
+        if (dtos.isEmpty()) {
+            return;
+        }
+
+        Set<Long> userIds = dtos.stream().map(SubmissionDTO::getUserId).collect(Collectors.toSet());
+        Set<Long> taskIds = dtos.stream().map(SubmissionDTO::getTaskId).collect(Collectors.toSet());
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Task> tasks = taskRepository.findAllById(taskIds).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+        Set<String> existingPairs = new HashSet<>();
+        for (Object[] pair : submissionRepository.findUserTaskPairs(userIds, taskIds)) {
+            existingPairs.add(pair[0] + ":" + pair[1]);
+        }
+
+        List<Row> toCreateRows = new ArrayList<>();
+        List<Submission> submissions = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            SubmissionDTO dto = dtos.get(i);
+            long line = accepted.get(i).line;
+            User user = users.get(dto.getUserId());
+            Task task = tasks.get(dto.getTaskId());
+            if (user == null) {
+                job.fail(line, "Usuario no encontrado: " + dto.getUserId());
+            } else if (task == null) {
+                job.fail(line, "Tarea no encontrada: " + dto.getTaskId());
+            } else if (existingPairs.contains(dto.getUserId() + ":" + dto.getTaskId())) {
+                job.fail(line, "Ya existe una entrega para esta tarea");
+            } else if (dto.getGrade() != null && task.getMaxGrade() != null && dto.getGrade() > task.getMaxGrade()) {
+                job.fail(line, "La nota supera la nota máxima de la tarea (" + task.getMaxGrade() + ")");
+            } else {
+                Submission submission = new Submission();
+                submission.setSubmissionDate(dto.getSubmissionDate());
+                submission.setStatus(dto.getStatus());
+                submission.setGrade(dto.getGrade());
+                submission.setComments(dto.getComments());
+                submission.setFileUrl(dto.getFileUrl());
+                submission.setFileName(dto.getFileName());
+                submission.setFileSize(dto.getFileSize());
+                submission.setUser(user);
+                submission.setTask(task);
+                toCreateRows.add(accepted.get(i));
+                submissions.add(submission);
+            }
+        }
+        if (!submissions.isEmpty()) {
+            write(job, toCreateRows, () -> submissionService.saveAll(submissions));
+        }
+    }
+
+    /**
+     * Guarda un bloque en su propia transacción; si falla, todas sus filas se reportan como fallidas
+     */
+    private void write(ImportJob job, List<Row> rows, Runnable save) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> save.run());
+            job.imported(rows.size());
+        } catch (RuntimeException e) {
+            log.warn("Importación {}: no se pudo guardar un bloque de {} filas", job.id, rows.size(), e);
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (Row row : rows) {
+                job.fail(row.line, "No se pudo guardar el bloque de la fila: " + cause);
+            }
+        }
+    }
+
+    /**
+     * Convierte una fila al DTO correspondiente y la valida; registra el error y devuelve null si no es válida
+     */
+    private <T> T convert(ImportJob job, Row row, Class<T> type) {
+        T dto;
+        try {
+            dto = objectMapper.convertValue(row.values, type);
+        } catch (IllegalArgumentException e) {
+            String column = e.getCause() instanceof JsonMappingException mapping && !mapping.getPath().isEmpty()
+                    ? mapping.getPath().get(mapping.getPath().size() - 1).getFieldName()
+                    : null;
+            job.fail(row.line, column != null ? "Valor inválido en la columna " + column : "Fila inválida");
+            return null;
+        }
+
+        Set<ConstraintViolation<T>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            job.fail(row.line, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return null;
+        }
+        return dto;
+    }
+
+    /**
+     * Tipos de datos que se pueden importar, con sus columnas reconocidas y obligatorias
+     */
+    public enum ImportType {
+        USERS(List.of("username", "password", "email", "firstName", "lastName", "phone", "role"),
+                List.of("username", "password", "email", "firstName", "lastName", "role")),
+        TASKS(List.of("title", "description", "publicationDate", "dueDate", "status", "maxGrade"),
+                List.of("title", "description", "publicationDate", "dueDate")),
+        SUBMISSIONS(List.of("userId", "taskId", "submissionDate", "status", "grade", "comments",
+                "fileUrl", "fileName", "fileSize"),
+                List.of("userId", "taskId", "submissionDate"));
+
+        private final List<String> columns;
+        private final List<String> required;
+
+        ImportType(List<String> columns, List<String> required) {
+            this.columns = columns;
+            this.required = required;
+        }
+    }
+
+    /**
+     * Registro del archivo con sus valores no vacíos por propiedad
+     */
+    private static class Row {
+
+        private final long line;
+        private final Map<String, String> values;
+
+        private Row(long line, Map<String, String> values) {
+            this.line = line;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Estado mutable de un trabajo; se lee desde las peticiones de consulta mientras avanza
+     */
+    private class ImportJob {
+
+        private final String id;
+        private final ImportType type;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong processedRows = new AtomicLong();
+        private final AtomicLong importedRows = new AtomicLong();
+        private final AtomicLong failedRows = new AtomicLong();
+        private final List<ImportJobDTO.RowError> errors = Collections.synchronizedList(new ArrayList<>());
+        // Claves ya vistas en el archivo (usuarios, emails, pares usuario-tarea); solo la usa el hilo de la importación
+        private final Set<String> seen = new HashSet<>();
+        private volatile ImportJobDTO.Status status = ImportJobDTO.Status.QUEUED;
+        private volatile String message;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        private ImportJob(String id, ImportType type) {
+            this.id = id;
+            this.type = type;
+        }
+
+        private void start() {
+            startedAt = LocalDateTime.now();
+            status = ImportJobDTO.Status.RUNNING;
+        }
+
+        private void processed(int rows) {
+            processedRows.addAndGet(rows);
+        }
+
+        private void imported(int rows) {
+            importedRows.addAndGet(rows);
+        }
+
+        private void fail(long line, String error) {
+            failedRows.incrementAndGet();
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportJobDTO.RowError(line, error));
+            }
+        }
+
+        private void finish(ImportJobDTO.Status finalStatus, String finalMessage) {
+            message = finalMessage;
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        private ImportJobDTO toDTO() {
+            List<ImportJobDTO.RowError> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = new ArrayList<>(errors);
+            }
+            errorsCopy.sort(Comparator.comparingLong(ImportJobDTO.RowError::getLine));
+            return new ImportJobDTO(id, type.name().toLowerCase(Locale.ROOT), status,
+                    processedRows.get(), importedRows.get(), failedRows.get(), message,
+                    createdAt, startedAt, finishedAt, errorsCopy);
+        }
+    }
+}
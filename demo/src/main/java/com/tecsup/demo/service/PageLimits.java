@@ -0,0 +1,38 @@
+package com.tecsup.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Límites de tamaño de página compartidos por los listados paginados por cursor
+ */
+@Component
+public class PageLimits {
+
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public PageLimits(@Value("${pagination.default-limit:50}") int defaultLimit,
+                      @Value("${pagination.max-limit:500}") int maxLimit) {
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Resuelve el tamaño de página solicitado
+     *
+     * @param limit Tamaño solicitado; null usa el valor por defecto
+     * @return Primera página con el tamaño resuelto (el desplazamiento siempre es cero)
+     * @throws IllegalArgumentException si el tamaño no es positivo
+     */
+    public PageRequest resolve(Integer limit) {
+        if (limit == null) {
+            return PageRequest.of(0, defaultLimit);
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("El límite debe ser mayor que cero");
+        }
+        return PageRequest.of(0, Math.min(limit, maxLimit));
+    }
+}
@@ -0,0 +1,220 @@
+package com.tecsup.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Calcula y verifica hashes BCrypt en pools propios y acotados.
+ * BCrypt es deliberadamente costoso en CPU; si se calculara en los hilos que atienden peticiones HTTP,
+ * una ola de inicios de sesión los ocuparía todos y dejaría sin atender las lecturas baratas.
+ *
+ * Hay dos pools:
+ * - El de solicitudes (inicio de sesión, alta y edición de usuarios) tiene una cola corta y rechaza
+ *   de inmediato lo que no cabe; el rechazo se responde con 503. Así, a lo sumo hilos + cola
+ *   peticiones HTTP quedan esperando un hash.
+ * - El de importaciones reparte los hashes de un lote entre varios hilos; cuando su cola se llena,
+ *   el hilo que envía el trabajo calcula el hash él mismo, lo que frena al productor en lugar de descartar trabajo.
+ *
+ * Publica métricas de Micrometer: password.hashing.queue.size y password.hashing.active (por pool),
+ * password.hashing.duration (por operación y pool), password.hashing.wait y password.hashing.rejected.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor requestExecutor;
+    private final ThreadPoolExecutor bulkExecutor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer bulkEncodeTimer;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${security.password-hashing.threads:0}") int threads,
+                                  @Value("${security.password-hashing.queue-capacity:500}") int queueCapacity,
+                                  @Value("${security.password-hashing.request-threads:0}") int requestThreads,
+                                  @Value("${security.password-hashing.request-queue-capacity:50}") int requestQueueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.requestExecutor = newExecutor("password-hash-request-", requestThreads, requestQueueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+        this.bulkExecutor = newExecutor("password-hash-", threads, queueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.encodeTimer = durationTimer(meterRegistry, "encode", "request");
+        this.matchesTimer = durationTimer(meterRegistry, "matches", "request");
+        this.bulkEncodeTimer = durationTimer(meterRegistry, "encode", "bulk");
+        this.waitTimer = Timer.builder("password.hashing.wait")
+                .description("Tiempo en cola antes de calcular un hash de una solicitud")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Operaciones de contraseña rechazadas por cola llena")
+                .register(meterRegistry);
+        registerPoolGauges(meterRegistry, "request", requestExecutor);
+        registerPoolGauges(meterRegistry, "bulk", bulkExecutor);
+    }
+
+    /**
+     * Calcula el hash de una contraseña en el pool de solicitudes
+     *
+     * @param rawPassword Contraseña en texto plano
+     * @return Hash de la contraseña
+     * @throws RejectedExecutionException Si la cola del pool está llena
+     */
+    public String encode(String rawPassword) {
+        return runOnRequestPool(() -> passwordEncoder.encode(rawPassword), encodeTimer);
+    }
+
+    /**
+     * Verifica una contraseña contra su hash en el pool de solicitudes
+     *
+     * @param rawPassword Contraseña en texto plano
+     * @param encodedPassword Hash almacenado
+     * @return true si la contraseña coincide
+     * @throws RejectedExecutionException Si la cola del pool está llena
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return runOnRequestPool(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    /**
+     * PasswordEncoder que delega en el pool de solicitudes; lo usa el AuthenticationManager al iniciar sesión
+     *
+     * @return Codificador acotado por el pool
+     */
+    public PasswordEncoder asPasswordEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return PasswordHashingService.this.encode(rawPassword.toString());
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return PasswordHashingService.this.matches(rawPassword.toString(), encodedPassword);
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return passwordEncoder.upgradeEncoding(encodedPassword);
+            }
+        };
+    }
+
+    /**
+     * Calcula en paralelo el hash de varias contraseñas
+     *
+     * @param rawPasswords Contraseñas en texto plano
+     * @return Hashes en el mismo orden recibido
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(rawPasswords.size());
+        for (String rawPassword : rawPasswords) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> bulkEncodeTimer.record(() -> passwordEncoder.encode(rawPassword)), bulkExecutor));
+        }
+
+        List<String> hashes = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<String> future : futures) {
+                hashes.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            throw new IllegalStateException("No se pudo calcular el hash de las contraseñas", e.getCause());
+        }
+        return hashes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        requestExecutor.shutdownNow();
+        bulkExecutor.shutdownNow();
+    }
+
+    /**
+     * Ejecuta la operación en el pool de solicitudes y espera su resultado; si la cola está llena
+     * falla de inmediato en lugar de bloquear el hilo HTTP
+     */
+    private <T> T runOnRequestPool(Supplier<T> operation, Timer timer) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = requestExecutor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer.record(operation);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("Demasiadas operaciones de contraseña en espera", e);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Se interrumpió el cálculo del hash de la contraseña", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("No se pudo calcular el hash de la contraseña", e.getCause());
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor(String threadPrefix, int threads, int queueCapacity,
+                                                  RejectedExecutionHandler rejectionHandler) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadPrefix + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                rejectionHandler);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static Timer durationTimer(MeterRegistry meterRegistry, String operation, String pool) {
+        return Timer.builder("password.hashing.duration")
+                .description("Tiempo de cálculo de un hash BCrypt")
+                .tag("operation", operation)
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+
+    private static void registerPoolGauges(MeterRegistry meterRegistry, String pool, ThreadPoolExecutor executor) {
+        Gauge.builder("password.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Operaciones de contraseña en cola")
+                .tag("pool", pool)
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos calculando hashes")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+}
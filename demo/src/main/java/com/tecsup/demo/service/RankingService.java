@@ -0,0 +1,113 @@
+package com.tecsup.demo.service;
+
+import com.tecsup.demo.dto.StudentRankingDTO;
+import com.tecsup.demo.entity.GradeAggregate;
+import com.tecsup.demo.entity.User;
+import com.tecsup.demo.repository.UserRepository;
+import com.tecsup.demo.util.CursorCodec;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Servicio de ranking de estudiantes por promedio de calificaciones.
+ * El orden y el corte top-K se resuelven en la base de datos con una sola consulta;
+ * la paginación usa un cursor (promedio, id, rango) para mantener los rangos densos entre páginas.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RankingService {
+
+    private final UserRepository userRepository;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public RankingService(UserRepository userRepository,
+                          @Value("${statistics.ranking.default-limit:100}") int defaultLimit,
+                          @Value("${statistics.ranking.max-limit:1000}") int maxLimit) {
+        this.userRepository = userRepository;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Obtiene una página del ranking de estudiantes
+     *
+     * @param limit Cantidad máxima de filas (top-K); null usa el valor por defecto
+     * @param cursor Cursor devuelto por la página anterior; null para la primera página
+     * @return Página del ranking con el cursor de la siguiente página
+     */
+    public RankingPage getStudentRanking(Integer limit, String cursor) {
+        int size = resolveLimit(limit);
+        PageRequest page = PageRequest.of(0, size);
+
+        List<Object[]> rows;
+        double previousAverage = Double.NaN;
+        int rank = 0;
+        if (cursor == null || cursor.isBlank()) {
+            rows = userRepository.findRankingPage(User.UserRole.STUDENT, GradeAggregate.Scope.USER, page);
+        } else {
+            String[] parts = CursorCodec.decode(cursor, 3);
+            try {
+                previousAverage = Double.parseDouble(parts[0]);
+                rank = Integer.parseInt(parts[2]);
+                rows = userRepository.findRankingPageAfter(User.UserRole.STUDENT, GradeAggregate.Scope.USER,
+                        previousAverage, Long.parseLong(parts[1]), page);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido", e);
+            }
+        }
+
+        List<StudentRankingDTO> ranking = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            double average = ((Number) row[4]).doubleValue();
+            // Rango denso: los empates comparten posición y el siguiente promedio distinto suma uno
+            if (rank == 0 || Double.compare(average, previousAverage) != 0) {
+                rank++;
+                previousAverage = average;
+            }
+            ranking.add(new StudentRankingDTO(rank, (Long) row[0], (String) row[1],
+                    row[2] + " " + row[3], average));
+        }
+
+        String nextCursor = null;
+        if (ranking.size() == size) {
+            StudentRankingDTO last = ranking.get(ranking.size() - 1);
+            nextCursor = CursorCodec.encode(last.getAverageGrade(), last.getUserId(), last.getRank());
+        }
+        return new RankingPage(ranking, nextCursor);
+    }
+
+    /**
+     * Resuelve el tamaño efectivo de la página: el valor por defecto si no se indica, acotado al máximo
+     *
+     * @param limit Cantidad solicitada; puede ser null
+     * @return Cantidad de filas que devolverá la página
+     * @throws IllegalArgumentException Si el límite es menor que uno
+     */
+    public int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("El límite debe ser mayor que cero");
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    /**
+     * Página del ranking junto con el cursor de la siguiente página (null si no hay más)
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RankingPage {
+        private final List<StudentRankingDTO> items;
+        private final String nextCursor;
+    }
+}
@@ -0,0 +1,186 @@
+package com.tecsup.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta en paralelo las consultas independientes de un endpoint de estadísticas
+ * y las espera con un plazo común. Las consultas que no terminan a tiempo se reportan
+ * como no disponibles para que el endpoint devuelva un resultado parcial.
+ * Cada consulta corre en una transacción cuyo timeout es el tiempo que queda hasta el plazo;
+ * Spring lo aplica como timeout JDBC de las consultas, así que la base de datos cancela la
+ * consulta que se pasa del plazo en lugar de seguir ocupando el hilo y la conexión.
+ *
+ * El pool es propio y acotado (no se expone como bean Executor) para no reemplazar
+ * el executor de Spring usado por @Async y las respuestas asíncronas de Spring MVC.
+ */
+@Component
+public class StatisticsFanOutExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(StatisticsFanOutExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final PlatformTransactionManager transactionManager;
+    private final long deadlineMillis;
+
+    public StatisticsFanOutExecutor(PlatformTransactionManager transactionManager,
+                                    @Value("${statistics.fanout.threads:8}") int threads,
+                                    @Value("${statistics.fanout.queue-capacity:200}") int queueCapacity,
+                                    @Value("${statistics.fanout.deadline-ms:2000}") long deadlineMillis) {
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "statistics-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.transactionManager = transactionManager;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Inicia una ejecución en paralelo con el plazo configurado
+     *
+     * @return Ejecución a la que se agregan las consultas
+     */
+    public FanOut fanOut() {
+        return new FanOut(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Conjunto de consultas lanzadas en paralelo que comparten un mismo plazo
+     */
+    public class FanOut {
+
+        private final long deadlineNanos;
+        private final Map<String, CompletableFuture<?>> futures = new LinkedHashMap<>();
+
+        private FanOut(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Lanza una consulta en el pool
+         *
+         * @param name Nombre de la consulta, usado para reportarla si no está disponible
+         * @param query Consulta a ejecutar
+         * @return Esta misma ejecución
+         */
+        public FanOut submit(String name, Supplier<?> query) {
+            CompletableFuture<?> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> runWithinDeadline(query), executor);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.put(name, future);
+            return this;
+        }
+
+        /**
+         * Espera todas las consultas hasta el plazo común
+         *
+         * @return Resultados obtenidos y nombres de las consultas no disponibles
+         */
+        public Result join() {
+            Map<String, Object> values = new LinkedHashMap<>();
+            List<String> unavailable = new ArrayList<>();
+
+            for (Map.Entry<String, CompletableFuture<?>> entry : futures.entrySet()) {
+                long remaining = deadlineNanos - System.nanoTime();
+                try {
+                    values.put(entry.getKey(), entry.getValue().get(Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    entry.getValue().cancel(true);
+                    unavailable.add(entry.getKey());
+                    log.warn("Consulta de estadísticas '{}' excedió el plazo de {} ms", entry.getKey(), deadlineMillis);
+                } catch (ExecutionException e) {
+                    unavailable.add(entry.getKey());
+                    log.warn("Consulta de estadísticas '{}' falló", entry.getKey(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    unavailable.add(entry.getKey());
+                }
+            }
+            return new Result(values, unavailable);
+        }
+
+        /**
+         * Ejecuta la consulta con el tiempo restante como timeout de transacción (en segundos, redondeado hacia arriba);
+         * si la consulta esperó en la cola hasta vencer el plazo, ni siquiera se ejecuta
+         */
+        private Object runWithinDeadline(Supplier<?> query) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMillis <= 0) {
+                throw new TransactionTimedOutException("El plazo de la consulta venció antes de ejecutarla");
+            }
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setTimeout((int) Math.ceil(remainingMillis / 1000.0));
+            return transactionTemplate.execute(status -> query.get());
+        }
+    }
+
+    /**
+     * Resultado de una ejecución en paralelo
+     */
+    public static class Result {
+
+        private final Map<String, Object> values;
+        private final List<String> unavailable;
+
+        private Result(Map<String, Object> values, List<String> unavailable) {
+            this.values = values;
+            this.unavailable = unavailable;
+        }
+
+        /**
+         * Obtiene el resultado de una consulta
+         *
+         * @param name Nombre de la consulta
+         * @return Resultado o null si la consulta no está disponible
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T get(String name) {
+            return (T) values.get(name);
+        }
+
+        public boolean isAvailable(String name) {
+            return values.containsKey(name);
+        }
+
+        public boolean isDegraded() {
+            return !unavailable.isEmpty();
+        }
+
+        public List<String> getUnavailable() {
+            return unavailable;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.tecsup.demo.service;
+
+import com.tecsup.demo.entity.GradeAggregate;
+import com.tecsup.demo.entity.Submission;
+import com.tecsup.demo.entity.Task;
+import com.tecsup.demo.entity.User;
+import com.tecsup.demo.repository.SubmissionRepository;
+import com.tecsup.demo.repository.TaskRepository;
+import com.tecsup.demo.repository.UserRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Servicio de estadísticas basado en consultas agregadas.
+ * Los contadores se obtienen con COUNT(*) ... GROUP BY en la base de datos,
+ * sin cargar entidades en memoria, y las consultas independientes de cada
+ * endpoint se ejecutan en paralelo con un plazo común.
+ *
+ * No es transaccional a nivel de clase: cada consulta abre su propia transacción
+ * de solo lectura en el hilo del pool, sin retener una conexión en el hilo del request.
+ *
+ * Si el almacén columnar de entregas está habilitado y cargado, los conteos y notas de
+ * entregas se calculan en memoria sobre él en lugar de consultar la base de datos.
+ */
+@Service
+public class StatisticsService {
+
+    private static final String USERS = "users";
+    private static final String TASKS = "tasks";
+    private static final String SUBMISSIONS = "submissions";
+    private static final String GRADES = "grades";
+
+    private final UserRepository userRepository;
+    private final TaskRepository taskRepository;
+    private final SubmissionRepository submissionRepository;
+    private final GradeAggregateService gradeAggregateService;
+    private final StatisticsFanOutExecutor fanOutExecutor;
+    private final Optional<SubmissionColumnStore> columnStore;
+
+    public StatisticsService(UserRepository userRepository, TaskRepository taskRepository,
+                             SubmissionRepository submissionRepository, GradeAggregateService gradeAggregateService,
+                             StatisticsFanOutExecutor fanOutExecutor, Optional<SubmissionColumnStore> columnStore) {
+        this.userRepository = userRepository;
+        this.taskRepository = taskRepository;
+        this.submissionRepository = submissionRepository;
+        this.gradeAggregateService = gradeAggregateService;
+        this.fanOutExecutor = fanOutExecutor;
+        this.columnStore = columnStore;
+    }
+
+    /**
+     * Obtiene las estadísticas generales del sistema con una consulta agrupada por entidad
+     *
+     * @return Estadísticas generales
+     */
+    public Map<String, Object> getGeneralStatistics() {
+        Optional<SubmissionColumnStore> store = readyColumnStore();
+        StatisticsFanOutExecutor.FanOut fanOut = fanOutExecutor.fanOut()
+                .submit(USERS, userRepository::countGroupedByRole)
+                .submit(TASKS, taskRepository::countGroupedByStatus);
+        if (store.isEmpty()) {
+            fanOut.submit(SUBMISSIONS, submissionRepository::countGroupedByStatus);
+        }
+        StatisticsFanOutExecutor.Result result = fanOut.join();
+
+        Map<String, Object> stats = new HashMap<>();
+
+        // Estadísticas de usuarios
+        if (result.isAvailable(USERS)) {
+            Map<User.UserRole, Long> usersByRole = toCountMap(User.UserRole.class, result.get(USERS));
+            stats.put("totalUsers", total(usersByRole));
+            stats.put("students", usersByRole.get(User.UserRole.STUDENT));
+            stats.put("professors", usersByRole.get(User.UserRole.PROFESSOR));
+            stats.put("admins", usersByRole.get(User.UserRole.ADMIN));
+        }
+
+        // Estadísticas de tareas
+        if (result.isAvailable(TASKS)) {
+            Map<Task.TaskStatus, Long> tasksByStatus = toCountMap(Task.TaskStatus.class, result.get(TASKS));
+            stats.put("totalTasks", total(tasksByStatus));
+            stats.put("activeTasks", tasksByStatus.get(Task.TaskStatus.ACTIVE));
+            stats.put("archivedTasks", tasksByStatus.get(Task.TaskStatus.ARCHIVED));
+        }
+
+        // Estadísticas de entregas
+        if (store.isPresent()) {
+            putSubmissionCounts(stats, store.get().query().aggregate().getCountsByStatus());
+        } else if (result.isAvailable(SUBMISSIONS)) {
+            putSubmissionCounts(stats, toCountMap(Submission.SubmissionStatus.class, result.get(SUBMISSIONS)));
+        }
+
+        putDegradation(stats, result);
+        return stats;
+    }
+
+    /**
+     * Obtiene las estadísticas de un usuario con un único conteo agrupado sobre sus entregas
+     *
+     * @param user Usuario
+     * @return Estadísticas del usuario
+     */
+    public Map<String, Object> getUserStatistics(User user) {
+        Map<String, Object> stats = new HashMap<>();
+
+        stats.put("userId", user.getId());
+        stats.put("username", user.getUsername());
+        stats.put("fullName", user.getFirstName() + " " + user.getLastName());
+        stats.put("role", user.getRole().getDisplayName());
+
+        Optional<SubmissionColumnStore> store = readyColumnStore();
+        if (store.isPresent()) {
+            putColumnAggregate(stats, store.get().query().user(user.getId()).aggregate());
+            return stats;
+        }
+
+        StatisticsFanOutExecutor.Result result = fanOutExecutor.fanOut()
+                .submit(SUBMISSIONS, () -> submissionRepository.countGroupedByStatusForUser(user.getId()))
+                .submit(GRADES, () -> gradeAggregateService.findByUser(user.getId()))
+                .join();
+
+        putSubmissionCounts(stats, result);
+        putGradeAggregate(stats, result);
+        putDegradation(stats, result);
+
+        return stats;
+    }
+
+    /**
+     * Obtiene las estadísticas de una tarea con un único conteo agrupado sobre sus entregas
+     *
+     * @param task Tarea
+     * @return Estadísticas de la tarea
+     */
+    public Map<String, Object> getTaskStatistics(Task task) {
+        Map<String, Object> stats = new HashMap<>();
+
+        stats.put("taskId", task.getId());
+        stats.put("taskTitle", task.getTitle());
+        stats.put("taskStatus", task.getStatus().getDisplayName());
+        stats.put("maxGrade", task.getMaxGrade());
+        stats.put("dueDate", task.getDueDate());
+
+        Optional<SubmissionColumnStore> store = readyColumnStore();
+        if (store.isPresent()) {
+            putColumnAggregate(stats, store.get().query().task(task.getId()).aggregate());
+            return stats;
+        }
+
+        StatisticsFanOutExecutor.Result result = fanOutExecutor.fanOut()
+                .submit(SUBMISSIONS, () -> submissionRepository.countGroupedByStatusForTask(task.getId()))
+                .submit(GRADES, () -> gradeAggregateService.findByTask(task.getId()))
+                .join();
+
+        putSubmissionCounts(stats, result);
+        putGradeAggregate(stats, result);
+        putDegradation(stats, result);
+
+        return stats;
+    }
+
+    /**
+     * Obtiene las estadísticas de una cohorte de entregas desde el almacén columnar
+     *
+     * @param taskId Tarea de la cohorte; null incluye todas las tareas
+     * @param userIds Estudiantes de la cohorte; null incluye a todos
+     * @param statuses Estados de entrega aceptados; null o vacío incluye todos
+     * @param from Inicio del rango de fechas de entrega; null sin límite
+     * @param to Fin del rango de fechas de entrega; null sin límite
+     * @return Estadísticas de la cohorte, o vacío si el almacén columnar no está disponible
+     */
+    public Optional<Map<String, Object>> getCohortStatistics(Long taskId, List<Long> userIds,
+                                                             List<Submission.SubmissionStatus> statuses,
+                                                             LocalDateTime from, LocalDateTime to) {
+        return readyColumnStore().map(store -> {
+            SubmissionColumnStore.ColumnAggregate aggregate = store.query()
+                    .task(taskId)
+                    .users(userIds)
+                    .statuses(statuses)
+                    .submittedBetween(from, to)
+                    .aggregate();
+
+            Map<String, Object> stats = new HashMap<>();
+            putColumnAggregate(stats, aggregate);
+            return stats;
+        });
+    }
+
+    private Optional<SubmissionColumnStore> readyColumnStore() {
+        return columnStore.filter(SubmissionColumnStore::isReady);
+    }
+
+    private static void putColumnAggregate(Map<String, Object> stats, SubmissionColumnStore.ColumnAggregate aggregate) {
+        putSubmissionCounts(stats, aggregate.getCountsByStatus());
+        stats.put("averageGrade", aggregate.getAverage() != null ? aggregate.getAverage() : 0.0);
+        stats.put("gradeVariance", aggregate.getVariance() != null ? aggregate.getVariance() : 0.0);
+        stats.put("lowestGrade", aggregate.getMinGrade());
+        stats.put("highestGrade", aggregate.getMaxGrade());
+        stats.put("degraded", false);
+    }
+
+    private static void putSubmissionCounts(Map<String, Object> stats, StatisticsFanOutExecutor.Result result) {
+        if (result.isAvailable(SUBMISSIONS)) {
+            putSubmissionCounts(stats, toCountMap(Submission.SubmissionStatus.class, result.get(SUBMISSIONS)));
+        }
+    }
+
+    private static void putSubmissionCounts(Map<String, Object> stats, Map<Submission.SubmissionStatus, Long> byStatus) {
+        stats.put("totalSubmissions", total(byStatus));
+        stats.put("gradedSubmissions", byStatus.get(Submission.SubmissionStatus.GRADED));
+        stats.put("pendingSubmissions", byStatus.get(Submission.SubmissionStatus.PENDING));
+        stats.put("lateSubmissions", byStatus.get(Submission.SubmissionStatus.LATE));
+    }
+
+    private static void putGradeAggregate(Map<String, Object> stats, StatisticsFanOutExecutor.Result result) {
+        if (!result.isAvailable(GRADES)) {
+            return;
+        }
+        Optional<GradeAggregate> aggregate = result.get(GRADES);
+        stats.put("averageGrade", aggregate.map(GradeAggregate::getAverage).orElse(0.0));
+        stats.put("gradeVariance", aggregate.map(GradeAggregate::getVariance).orElse(0.0));
+        stats.put("lowestGrade", aggregate.map(GradeAggregate::getMinGrade).orElse(null));
+        stats.put("highestGrade", aggregate.map(GradeAggregate::getMaxGrade).orElse(null));
+    }
+
+    /**
+     * Marca la respuesta como degradada cuando alguna consulta no terminó dentro del plazo
+     */
+    private static void putDegradation(Map<String, Object> stats, StatisticsFanOutExecutor.Result result) {
+        stats.put("degraded", result.isDegraded());
+        if (result.isDegraded()) {
+            stats.put("unavailable", result.getUnavailable());
+        }
+    }
+
+    /**
+     * Convierte filas [enum, cantidad] en un mapa con todas las constantes del enum inicializadas en cero
+     *
+     * @param type Tipo del enum agrupado
+     * @param rows Filas devueltas por la consulta agrupada
+     * @return Mapa de cantidades por constante
+     */
+    static <E extends Enum<E>> Map<E, Long> toCountMap(Class<E> type, List<Object[]> rows) {
+        Map<E, Long> counts = new EnumMap<>(type);
+        for (E constant : type.getEnumConstants()) {
+            counts.put(constant, 0L);
+        }
+        for (Object[] row : rows) {
+            counts.put(type.cast(row[0]), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private static long total(Map<?, Long> counts) {
+        long total = 0;
+        for (Long count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,151 @@
+package com.tecsup.demo.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.tecsup.demo.dto.StatisticsSnapshot;
+import com.tecsup.demo.event.SubmissionChangedEvent;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Servicio de instantáneas de estadísticas.
+ * Los lectores reciben siempre la última instantánea disponible sin esperar el recálculo;
+ * las instantáneas se refrescan en segundo plano de forma periódica y cuando se confirman
+ * cambios en las entregas. Los cambios solo marcan las instantáneas como pendientes: un refresco
+ * programado las recalcula a lo sumo una vez por intervalo, sin importar cuántos cambios hubo.
+ * Si una instantánea supera la antigüedad máxima permitida, se recalcula de forma síncrona antes de responder.
+ */
+@Service
+public class StatisticsSnapshotService {
+
+    private static final String GENERAL_KEY = "general";
+    private static final String RANKING_KEY_PREFIX = "ranking:";
+
+    private final StatisticsService statisticsService;
+    private final RankingService rankingService;
+    private final LoadingCache<String, StatisticsSnapshot<?>> snapshots;
+    private final Duration maxStaleness;
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    public StatisticsSnapshotService(StatisticsService statisticsService,
+                                     RankingService rankingService,
+                                     @Qualifier("statisticsSnapshotCacheConfig") Caffeine<Object, Object> cacheConfig,
+                                     @Qualifier("applicationTaskExecutor") Executor refreshExecutor,
+                                     @Value("${statistics.snapshot.max-staleness-ms:120000}") long maxStalenessMillis) {
+        this.statisticsService = statisticsService;
+        this.rankingService = rankingService;
+        this.maxStaleness = Duration.ofMillis(maxStalenessMillis);
+        this.snapshots = cacheConfig
+                .executor(refreshExecutor)
+                .build(new SnapshotLoader());
+    }
+
+    /**
+     * Obtiene la instantánea de estadísticas generales
+     *
+     * @return Instantánea con las estadísticas generales
+     */
+    @SuppressWarnings("unchecked")
+    public StatisticsSnapshot<Map<String, Object>> getGeneralStatistics() {
+        return (StatisticsSnapshot<Map<String, Object>>) get(GENERAL_KEY);
+    }
+
+    /**
+     * Obtiene la instantánea de la primera página del ranking de estudiantes
+     *
+     * @param limit Cantidad máxima de estudiantes; null usa el valor por defecto
+     * @return Instantánea con la primera página del ranking
+     */
+    @SuppressWarnings("unchecked")
+    public StatisticsSnapshot<RankingService.RankingPage> getStudentRanking(Integer limit) {
+        // La clave usa el límite efectivo: los valores que acaban en la misma página comparten instantánea
+        String key = RANKING_KEY_PREFIX + rankingService.resolveLimit(limit);
+        return (StatisticsSnapshot<RankingService.RankingPage>) get(key);
+    }
+
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    /**
+     * Refresca en segundo plano todas las instantáneas en uso
+     */
+    @Scheduled(fixedDelayString = "${statistics.snapshot.refresh-interval-ms:30000}")
+    public void refreshAll() {
+        changed.set(false);
+        for (String key : snapshots.asMap().keySet()) {
+            snapshots.refresh(key);
+        }
+    }
+
+    /**
+     * Refresca las instantáneas si se confirmaron cambios en las entregas desde el último refresco
+     */
+    @Scheduled(fixedDelayString = "${statistics.snapshot.change-refresh-interval-ms:5000}")
+    public void refreshIfChanged() {
+        if (changed.get()) {
+            refreshAll();
+        }
+    }
+
+    /**
+     * Marca las instantáneas como pendientes cuando se confirma un cambio en las entregas
+     *
+     * @param event Evento con los cambios de entregas
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSubmissionChanged(SubmissionChangedEvent event) {
+        changed.set(true);
+    }
+
+    private StatisticsSnapshot<?> get(String key) {
+        StatisticsSnapshot<?> snapshot = snapshots.get(key);
+        if (snapshot.getGeneratedAt().plus(maxStaleness).isBefore(Instant.now())) {
+            snapshot = compute(key);
+            snapshots.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    private StatisticsSnapshot<?> compute(String key) {
+        Object data;
+        if (GENERAL_KEY.equals(key)) {
+            data = statisticsService.getGeneralStatistics();
+        } else {
+            int limit = Integer.parseInt(key.substring(RANKING_KEY_PREFIX.length()));
+            data = rankingService.getStudentRanking(limit, null);
+        }
+        return new StatisticsSnapshot<>(data, Instant.now());
+    }
+
+    /**
+     * Cargador del cache: conserva la instantánea anterior si el recálculo vuelve degradado
+     */
+    private class SnapshotLoader implements CacheLoader<String, StatisticsSnapshot<?>> {
+
+        @Override
+        public StatisticsSnapshot<?> load(String key) {
+            return compute(key);
+        }
+
+        @Override
+        public StatisticsSnapshot<?> reload(String key, StatisticsSnapshot<?> oldValue) {
+            StatisticsSnapshot<?> fresh = compute(key);
+            if (fresh.getData() instanceof Map<?, ?> stats && Boolean.TRUE.equals(stats.get("degraded"))) {
+                return oldValue;
+            }
+            return fresh;
+        }
+    }
+}
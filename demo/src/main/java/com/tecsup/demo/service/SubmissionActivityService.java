@@ -0,0 +1,322 @@
+package com.tecsup.demo.service;
+
+import com.tecsup.demo.dto.SubmissionActivityDTO;
+import com.tecsup.demo.entity.SubmissionActivity;
+import com.tecsup.demo.event.SubmissionChange;
+import com.tecsup.demo.event.SubmissionChangedEvent;
+import com.tecsup.demo.repository.SubmissionActivityRepository;
+import com.tecsup.demo.repository.SubmissionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Servicio que mantiene los contadores de entregas por hora y por día.
+ * Al confirmarse una entrega, su variación se acumula en memoria; un único hilo programado la vuelca
+ * periódicamente con un incremento atómico por intervalo (INSERT ... ON CONFLICT DO UPDATE). Así, guardar
+ * una entrega no bloquea filas de contadores ni puede fallar por ellas, y las entregas de un mismo intervalo
+ * se suman en una sola sentencia. Los contadores se retrasan a lo sumo un intervalo de volcado; lo que se
+ * pierda si la aplicación se detiene de golpe lo corrige la siguiente reconciliación.
+ * Las consultas de actividad leen solo la tabla de contadores.
+ *
+ * La reconstrucción descarta las variaciones pendientes porque su conteo ya las incluye. Para que ninguna
+ * variación quede contada dos veces, cada transacción que cambia entregas toma un cerrojo de lectura
+ * mientras confirma y hasta acumular su variación, y la reconstrucción toma el de escritura mientras
+ * descarta las pendientes y ejecuta el conteo: toda variación está o bien en el conteo o bien pendiente.
+ */
+@Service
+@Transactional
+public class SubmissionActivityService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionActivityService.class);
+
+    private final SubmissionActivityRepository activityRepository;
+    private final SubmissionRepository submissionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBuckets;
+    private final Map<SubmissionActivity.Granularity, ConcurrentHashMap<LocalDateTime, Long>> pending =
+            new EnumMap<>(SubmissionActivity.Granularity.class);
+    private final ReentrantReadWriteLock recountLock = new ReentrantReadWriteLock();
+
+    public SubmissionActivityService(SubmissionActivityRepository activityRepository,
+                                     SubmissionRepository submissionRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${statistics.activity.max-buckets:10000}") int maxBuckets) {
+        this.activityRepository = activityRepository;
+        this.submissionRepository = submissionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBuckets = maxBuckets;
+        for (SubmissionActivity.Granularity granularity : SubmissionActivity.Granularity.values()) {
+            pending.put(granularity, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de entregas por intervalo en un rango de fechas.
+     * Los intervalos sin entregas se devuelven con cantidad cero.
+     *
+     * @param from Inicio del rango (inclusive)
+     * @param to Fin del rango (inclusive)
+     * @param granularity Granularidad de los intervalos
+     * @return Actividad del rango con el total de entregas y los intervalos ordenados
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getActivity(LocalDateTime from, LocalDateTime to,
+                                           SubmissionActivity.Granularity granularity) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha de inicio debe ser anterior a la fecha de fin");
+        }
+
+        LocalDateTime firstBucket = granularity.truncate(from);
+        LocalDateTime lastBucket = granularity.truncate(to);
+
+        Map<LocalDateTime, Long> counts = new LinkedHashMap<>();
+        for (LocalDateTime bucket = firstBucket; !bucket.isAfter(lastBucket); bucket = granularity.next(bucket)) {
+            if (counts.size() >= maxBuckets) {
+                throw new IllegalArgumentException("El rango solicitado supera los " + maxBuckets + " intervalos");
+            }
+            counts.put(bucket, 0L);
+        }
+
+        long total = 0;
+        for (SubmissionActivity row : activityRepository
+                .findByGranularityAndBucketStartBetweenOrderByBucketStart(granularity, firstBucket, lastBucket)) {
+            counts.put(row.getBucketStart(), row.getSubmissionCount());
+            total += row.getSubmissionCount();
+        }
+
+        List<SubmissionActivityDTO> buckets = new ArrayList<>(counts.size());
+        counts.forEach((bucket, count) -> buckets.add(new SubmissionActivityDTO(bucket, count)));
+
+        Map<String, Object> activity = new LinkedHashMap<>();
+        activity.put("granularity", granularity);
+        activity.put("from", firstBucket);
+        activity.put("to", lastBucket);
+        activity.put("totalSubmissions", total);
+        activity.put("buckets", buckets);
+        return activity;
+    }
+
+    /**
+     * Registra la variación de las entregas creadas, eliminadas o cuya fecha o estado cambió;
+     * se acumula para el volcado solo cuando la transacción que las guardó se confirma
+     *
+     * @param event Evento con los cambios de entregas
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void onSubmissionChanged(SubmissionChangedEvent event) {
+        List<SubmissionChange> changes = new ArrayList<>();
+        for (SubmissionChange change : event.getChanges()) {
+            if (change.affectsActivity()) {
+                changes.add(change);
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recountLock.readLock().lock();
+            try {
+                changes.forEach(this::addPending);
+            } finally {
+                recountLock.readLock().unlock();
+            }
+            return;
+        }
+
+        PendingChanges transactionChanges = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (transactionChanges == null) {
+            transactionChanges = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, transactionChanges);
+            TransactionSynchronizationManager.registerSynchronization(transactionChanges);
+        }
+        transactionChanges.changes.addAll(changes);
+    }
+
+    /**
+     * Vuelca a la base de datos las variaciones acumuladas. Si el volcado falla, las variaciones
+     * vuelven a la memoria y se reintentan en el siguiente.
+     */
+    @Scheduled(fixedDelayString = "${statistics.activity.flush-interval-ms:1000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public synchronized void flushPending() {
+        Map<SubmissionActivity.Granularity, Map<LocalDateTime, Long>> deltas = drainPending();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::applyDeltas));
+        } catch (DataAccessException e) {
+            deltas.forEach((granularity, granularityDeltas) ->
+                    granularityDeltas.forEach((bucket, delta) -> pending.get(granularity).merge(bucket, delta, Long::sum)));
+            log.warn("No se pudieron volcar los contadores de actividad; se reintentará", e);
+        }
+    }
+
+    /**
+     * Vuelca las variaciones pendientes al detener la aplicación
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushPending();
+    }
+
+    /**
+     * Reconstruye todos los contadores a partir de un conteo por hora agrupado en la base de datos.
+     * Las variaciones aún no volcadas se descartan, porque el conteo ya incluye sus entregas.
+     */
+    public synchronized void rebuildAll() {
+        List<Object[]> rows;
+        recountLock.writeLock().lock();
+        try {
+            drainPending();
+            rows = submissionRepository.countSubmissionsByHour();
+        } finally {
+            recountLock.writeLock().unlock();
+        }
+
+        Map<LocalDateTime, Long> hourly = new HashMap<>();
+        Map<LocalDateTime, Long> daily = new HashMap<>();
+        for (Object[] row : rows) {
+            LocalDateTime hour = LocalDateTime.of(
+                    ((Number) row[0]).intValue(),
+                    ((Number) row[1]).intValue(),
+                    ((Number) row[2]).intValue(),
+                    ((Number) row[3]).intValue(),
+                    0);
+            long count = ((Number) row[4]).longValue();
+            hourly.merge(hour, count, Long::sum);
+            daily.merge(SubmissionActivity.Granularity.DAY.truncate(hour), count, Long::sum);
+        }
+
+        rebuildGranularity(SubmissionActivity.Granularity.HOUR, hourly);
+        rebuildGranularity(SubmissionActivity.Granularity.DAY, daily);
+    }
+
+    /**
+     * Suma las variaciones intervalo por intervalo, en orden de intervalo
+     */
+    private void applyDeltas(SubmissionActivity.Granularity granularity, Map<LocalDateTime, Long> deltas) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<LocalDateTime, Long> delta : deltas.entrySet()) {
+            activityRepository.addToCount(granularity, delta.getKey(), delta.getValue(),
+                    Math.max(0, delta.getValue()), now);
+        }
+    }
+
+    private void rebuildGranularity(SubmissionActivity.Granularity granularity, Map<LocalDateTime, Long> counts) {
+        List<SubmissionActivity> toSave = new ArrayList<>();
+        List<SubmissionActivity> toDelete = new ArrayList<>();
+
+        for (SubmissionActivity row : activityRepository.findAllForUpdate(granularity)) {
+            Long count = counts.remove(row.getBucketStart());
+            if (count == null) {
+                toDelete.add(row);
+            } else if (count != row.getSubmissionCount()) {
+                row.setSubmissionCount(count);
+                toSave.add(row);
+            }
+        }
+
+        for (Map.Entry<LocalDateTime, Long> entry : counts.entrySet()) {
+            SubmissionActivity row = new SubmissionActivity(granularity, entry.getKey());
+            row.setSubmissionCount(entry.getValue());
+            toSave.add(row);
+        }
+
+        activityRepository.deleteAll(toDelete);
+        activityRepository.saveAll(toSave);
+    }
+
+    private void addPending(SubmissionChange change) {
+        if (SubmissionChange.countsAsActivity(change.getBefore())) {
+            addPending(change.getBefore().getSubmissionDate(), -1);
+        }
+        if (SubmissionChange.countsAsActivity(change.getAfter())) {
+            addPending(change.getAfter().getSubmissionDate(), 1);
+        }
+    }
+
+    private void addPending(LocalDateTime submissionDate, long delta) {
+        for (SubmissionActivity.Granularity granularity : SubmissionActivity.Granularity.values()) {
+            pending.get(granularity).merge(granularity.truncate(submissionDate), delta, Long::sum);
+        }
+    }
+
+    /**
+     * Retira de la memoria las variaciones acumuladas, ordenadas por intervalo y sin las que suman cero
+     */
+    private Map<SubmissionActivity.Granularity, Map<LocalDateTime, Long>> drainPending() {
+        Map<SubmissionActivity.Granularity, Map<LocalDateTime, Long>> deltas =
+                new EnumMap<>(SubmissionActivity.Granularity.class);
+        pending.forEach((granularity, granularityPending) -> {
+            Map<LocalDateTime, Long> drained = new TreeMap<>();
+            for (LocalDateTime bucket : granularityPending.keySet()) {
+                Long delta = granularityPending.remove(bucket);
+                if (delta != null && delta != 0) {
+                    drained.put(bucket, delta);
+                }
+            }
+            if (!drained.isEmpty()) {
+                deltas.put(granularity, drained);
+            }
+        });
+        return deltas;
+    }
+
+    /**
+     * Cambios de una transacción en curso: toma el cerrojo de lectura antes de confirmar y, si la
+     * confirmación tiene éxito, acumula las variaciones antes de soltarlo
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final List<SubmissionChange> changes = new ArrayList<>();
+        private boolean locked;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            recountLock.readLock().lock();
+            locked = true;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SubmissionActivityService.this);
+            try {
+                if (status == STATUS_COMMITTED) {
+                    changes.forEach(SubmissionActivityService.this::addPending);
+                }
+            } finally {
+                if (locked) {
+                    locked = false;
+                    recountLock.readLock().unlock();
+                }
+            }
+        }
+    }
+}
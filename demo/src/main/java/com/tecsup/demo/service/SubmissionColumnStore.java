@@ -0,0 +1,572 @@
+package com.tecsup.demo.service;
+
+import com.tecsup.demo.entity.Submission;
+import com.tecsup.demo.event.SubmissionChange;
+import com.tecsup.demo.event.SubmissionChangedEvent;
+import com.tecsup.demo.repository.SubmissionRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * Almacén columnar en memoria de la tabla de entregas, opcional (statistics.columnar.enabled).
+ * Guarda cada columna en un arreglo primitivo (ids, estudiante y tarea en long[], notas en double[],
+ * estado en byte[] y fecha en segundos epoch en long[]) para responder consultas de cohortes con
+ * recorridos secuenciales sin ramas, que el JIT puede vectorizar, en lugar de consultas JPA sobre entidades.
+ *
+ * Se carga al arrancar con una proyección escalar y se mantiene con los cambios de entregas ya
+ * confirmados, de modo que una transacción revertida nunca queda reflejada en el almacén.
+ */
+@Component
+@ConditionalOnProperty(name = "statistics.columnar.enabled", havingValue = "true")
+public class SubmissionColumnStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionColumnStore.class);
+
+    private static final Submission.SubmissionStatus[] STATUSES = Submission.SubmissionStatus.values();
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final SubmissionRepository submissionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final StampedLock lock = new StampedLock();
+
+    // Protegidos por el lock
+    private Columns columns = new Columns(INITIAL_CAPACITY);
+    private boolean ready;
+    private boolean loading;
+    private final List<SubmissionChange> pendingChanges = new ArrayList<>();
+
+    public SubmissionColumnStore(SubmissionRepository submissionRepository, PlatformTransactionManager transactionManager) {
+        this.submissionRepository = submissionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Indica si el almacén terminó su primera carga y puede responder consultas
+     *
+     * @return true si el almacén está listo
+     */
+    public boolean isReady() {
+        long stamp = lock.readLock();
+        try {
+            return ready;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Cantidad de entregas cargadas en el almacén
+     *
+     * @return Cantidad de filas
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return columns.size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Inicia una consulta sobre el almacén
+     *
+     * @return Consulta sin filtros
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Recarga todas las columnas desde la base de datos. Los cambios confirmados mientras dura la
+     * carga se guardan y se aplican sobre las columnas nuevas antes de publicarlas.
+     */
+    @Scheduled(cron = "${statistics.columnar.reload-cron:0 0 4 * * *}")
+    public void reload() {
+        long stamp = lock.writeLock();
+        try {
+            loading = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        long start = System.currentTimeMillis();
+        Columns fresh = null;
+        try {
+            fresh = readOnlyTransaction.execute(status -> {
+                Columns loaded = new Columns(Math.max(INITIAL_CAPACITY, (int) submissionRepository.count()));
+                try (Stream<Object[]> rows = submissionRepository.streamColumns()) {
+                    rows.forEach(row -> loaded.upsert(
+                            (Long) row[0],
+                            (Long) row[1],
+                            (Long) row[2],
+                            (Double) row[3],
+                            (Submission.SubmissionStatus) row[4],
+                            (LocalDateTime) row[5]));
+                }
+                return loaded;
+            });
+        } finally {
+            stamp = lock.writeLock();
+            try {
+                if (fresh != null) {
+                    columns = fresh;
+                    ready = true;
+                }
+                for (SubmissionChange change : pendingChanges) {
+                    columns.apply(change);
+                }
+                pendingChanges.clear();
+                loading = false;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        log.info("Almacén columnar de entregas cargado con {} filas en {} ms",
+                fresh.size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Aplica los cambios de entregas una vez confirmada la transacción
+     *
+     * @param event Evento con los cambios de entregas
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSubmissionChanged(SubmissionChangedEvent event) {
+        long stamp = lock.writeLock();
+        try {
+            if (loading) {
+                pendingChanges.addAll(event.getChanges());
+                return;
+            }
+            for (SubmissionChange change : event.getChanges()) {
+                columns.apply(change);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Columnas del almacén. Las filas eliminadas se reemplazan por la última fila para mantener
+     * los arreglos compactos.
+     */
+    private static final class Columns {
+
+        private long[] ids;
+        private long[] userIds;
+        private long[] taskIds;
+        private double[] grades;
+        private byte[] graded;
+        private byte[] statuses;
+        private long[] dates;
+        private int size;
+        private final RowIndex rowById;
+
+        private Columns(int capacity) {
+            ids = new long[capacity];
+            userIds = new long[capacity];
+            taskIds = new long[capacity];
+            grades = new double[capacity];
+            graded = new byte[capacity];
+            statuses = new byte[capacity];
+            dates = new long[capacity];
+            rowById = new RowIndex(capacity);
+        }
+
+        private void apply(SubmissionChange change) {
+            Submission.Snapshot after = change.getAfter();
+            if (after == null) {
+                remove(change.getSubmissionId());
+            } else {
+                upsert(change.getSubmissionId(), after.getUserId(), after.getTaskId(), after.getGrade(),
+                        after.getStatus(), after.getSubmissionDate());
+            }
+        }
+
+        private void upsert(Long id, Long userId, Long taskId, Double grade,
+                            Submission.SubmissionStatus status, LocalDateTime submissionDate) {
+            int row = rowById.get(id);
+            if (row < 0) {
+                ensureCapacity(size + 1);
+                row = size++;
+                rowById.put(id, row);
+            }
+            ids[row] = id;
+            userIds[row] = userId;
+            taskIds[row] = taskId;
+            grades[row] = grade != null ? grade : 0.0;
+            graded[row] = (byte) (grade != null ? 1 : 0);
+            statuses[row] = (byte) status.ordinal();
+            dates[row] = submissionDate != null ? toEpochSecond(submissionDate) : Long.MIN_VALUE;
+        }
+
+        private void remove(Long id) {
+            int row = rowById.remove(id);
+            if (row < 0) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                userIds[row] = userIds[last];
+                taskIds[row] = taskIds[last];
+                grades[row] = grades[last];
+                graded[row] = graded[last];
+                statuses[row] = statuses[last];
+                dates[row] = dates[last];
+                rowById.put(ids[row], row);
+            }
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= ids.length) {
+                return;
+            }
+            int capacity = Math.max(required, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            taskIds = Arrays.copyOf(taskIds, capacity);
+            grades = Arrays.copyOf(grades, capacity);
+            graded = Arrays.copyOf(graded, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            dates = Arrays.copyOf(dates, capacity);
+        }
+
+        /**
+         * Evalúa los filtros columna por columna sobre una máscara y luego agrega las filas seleccionadas.
+         * Cada recorrido es un ciclo sin ramas sobre un arreglo primitivo.
+         */
+        private ColumnAggregate aggregate(Query query) {
+            int n = size;
+            byte[] mask = new byte[n];
+            Arrays.fill(mask, (byte) 1);
+
+            if (query.taskId != null) {
+                long taskId = query.taskId;
+                for (int i = 0; i < n; i++) {
+                    mask[i] &= (byte) (taskIds[i] == taskId ? 1 : 0);
+                }
+            }
+            if (query.userId != null) {
+                long userId = query.userId;
+                for (int i = 0; i < n; i++) {
+                    mask[i] &= (byte) (userIds[i] == userId ? 1 : 0);
+                }
+            }
+            if (query.statusBits != 0) {
+                int bits = query.statusBits;
+                for (int i = 0; i < n; i++) {
+                    mask[i] &= (byte) ((bits >>> statuses[i]) & 1);
+                }
+            }
+            if (query.fromEpoch != null) {
+                long from = query.fromEpoch;
+                for (int i = 0; i < n; i++) {
+                    mask[i] &= (byte) (dates[i] >= from ? 1 : 0);
+                }
+            }
+            if (query.toEpoch != null) {
+                long to = query.toEpoch;
+                for (int i = 0; i < n; i++) {
+                    mask[i] &= (byte) (dates[i] <= to ? 1 : 0);
+                }
+            }
+            if (query.userIds != null) {
+                long[] userIdSet = query.userIds;
+                for (int i = 0; i < n; i++) {
+                    if (mask[i] != 0 && Arrays.binarySearch(userIdSet, userIds[i]) < 0) {
+                        mask[i] = 0;
+                    }
+                }
+            }
+
+            long count = 0;
+            long gradedCount = 0;
+            double sum = 0.0;
+            double sumOfSquares = 0.0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            long[] byStatus = new long[STATUSES.length];
+
+            for (int i = 0; i < n; i++) {
+                int selected = mask[i];
+                int selectedGrade = selected & graded[i];
+                double grade = grades[i];
+                count += selected;
+                byStatus[statuses[i]] += selected;
+                gradedCount += selectedGrade;
+                sum += selectedGrade * grade;
+                sumOfSquares += selectedGrade * grade * grade;
+                min = selectedGrade != 0 ? Math.min(min, grade) : min;
+                max = selectedGrade != 0 ? Math.max(max, grade) : max;
+            }
+
+            Map<Submission.SubmissionStatus, Long> countsByStatus = new EnumMap<>(Submission.SubmissionStatus.class);
+            for (Submission.SubmissionStatus status : STATUSES) {
+                countsByStatus.put(status, byStatus[status.ordinal()]);
+            }
+            return new ColumnAggregate(count, countsByStatus, gradedCount, sum, sumOfSquares,
+                    gradedCount > 0 ? min : null, gradedCount > 0 ? max : null);
+        }
+    }
+
+    /**
+     * Índice de ID de entrega a fila con direccionamiento abierto y sondeo lineal sobre arreglos primitivos,
+     * sin objetos por fila. Al eliminar se desplazan hacia atrás las claves siguientes del mismo grupo
+     * en lugar de dejar marcas de borrado, para que las búsquedas no se alarguen con el tiempo.
+     */
+    private static final class RowIndex {
+
+        private static final int EMPTY = -1;
+
+        private long[] keys;
+        private int[] rows;
+        private int mask;
+        private int size;
+
+        private RowIndex(int expected) {
+            allocate(tableSizeFor(expected));
+        }
+
+        /**
+         * @return Fila del ID o -1 si no está indexado
+         */
+        private int get(long id) {
+            for (int slot = slot(id); ; slot = (slot + 1) & mask) {
+                if (rows[slot] == EMPTY) {
+                    return EMPTY;
+                }
+                if (keys[slot] == id) {
+                    return rows[slot];
+                }
+            }
+        }
+
+        private void put(long id, int row) {
+            int slot = slot(id);
+            while (rows[slot] != EMPTY) {
+                if (keys[slot] == id) {
+                    rows[slot] = row;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = id;
+            rows[slot] = row;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        }
+
+        /**
+         * @return Fila que tenía el ID o -1 si no estaba indexado
+         */
+        private int remove(long id) {
+            int slot = slot(id);
+            while (rows[slot] != EMPTY && keys[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            int removed = rows[slot];
+            if (removed == EMPTY) {
+                return EMPTY;
+            }
+            size--;
+            // Desplaza hacia el hueco las claves cuyo sondeo pasa por él
+            int gap = slot;
+            for (int next = (gap + 1) & mask; rows[next] != EMPTY; next = (next + 1) & mask) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    rows[gap] = rows[next];
+                    gap = next;
+                }
+            }
+            rows[gap] = EMPTY;
+            return removed;
+        }
+
+        private int slot(long id) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldRows = rows;
+            allocate(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldRows[i] != EMPTY) {
+                    int slot = slot(oldKeys[i]);
+                    while (rows[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    rows[slot] = oldRows[i];
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            rows = new int[capacity];
+            Arrays.fill(rows, EMPTY);
+            mask = capacity - 1;
+        }
+
+        private static int tableSizeFor(int expected) {
+            return Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        }
+    }
+
+    /**
+     * Consulta de filtros sobre el almacén. Los filtros se combinan con AND.
+     */
+    public class Query {
+
+        private Long taskId;
+        private Long userId;
+        private long[] userIds;
+        private int statusBits;
+        private Long fromEpoch;
+        private Long toEpoch;
+
+        private Query() {
+        }
+
+        public Query task(Long taskId) {
+            this.taskId = taskId;
+            return this;
+        }
+
+        public Query user(Long userId) {
+            this.userId = userId;
+            return this;
+        }
+
+        /**
+         * Restringe la consulta a un conjunto de estudiantes
+         *
+         * @param userIds IDs de los estudiantes; null no filtra
+         * @return Esta misma consulta
+         */
+        public Query users(Collection<Long> userIds) {
+            if (userIds != null) {
+                this.userIds = userIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+            }
+            return this;
+        }
+
+        /**
+         * Restringe la consulta a uno o más estados
+         *
+         * @param statuses Estados aceptados; null o vacío no filtra
+         * @return Esta misma consulta
+         */
+        public Query statuses(Collection<Submission.SubmissionStatus> statuses) {
+            if (statuses != null) {
+                for (Submission.SubmissionStatus status : statuses) {
+                    statusBits |= 1 << status.ordinal();
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Restringe la consulta a un rango de fechas de entrega
+         *
+         * @param from Inicio del rango (inclusive); null no filtra
+         * @param to Fin del rango (inclusive); null no filtra
+         * @return Esta misma consulta
+         */
+        public Query submittedBetween(LocalDateTime from, LocalDateTime to) {
+            this.fromEpoch = from != null ? toEpochSecond(from) : null;
+            this.toEpoch = to != null ? toEpochSecond(to) : null;
+            return this;
+        }
+
+        /**
+         * Ejecuta la consulta sobre las columnas actuales
+         *
+         * @return Agregado de las entregas seleccionadas
+         */
+        public ColumnAggregate aggregate() {
+            long stamp = lock.readLock();
+            try {
+                return columns.aggregate(this);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Resultado de una consulta: cantidades por estado y resumen de notas de las entregas seleccionadas
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ColumnAggregate {
+
+        private final long count;
+        private final Map<Submission.SubmissionStatus, Long> countsByStatus;
+        private final long gradedCount;
+        private final double gradeSum;
+        private final double gradeSumOfSquares;
+        private final Double minGrade;
+        private final Double maxGrade;
+
+        /**
+         * Calcula el promedio de las notas seleccionadas
+         *
+         * @return Promedio o null si no hay notas
+         */
+        public Double getAverage() {
+            return gradedCount > 0 ? gradeSum / gradedCount : null;
+        }
+
+        /**
+         * Calcula la varianza poblacional de las notas seleccionadas
+         *
+         * @return Varianza o null si no hay notas
+         */
+        public Double getVariance() {
+            if (gradedCount <= 0) {
+                return null;
+            }
+            double mean = gradeSum / gradedCount;
+            return Math.max(0.0, gradeSumOfSquares / gradedCount - mean * mean);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.tecsup.demo.service;
+
+import com.tecsup.demo.entity.Submission;
+import com.tecsup.demo.entity.User;
+import com.tecsup.demo.event.SubmissionChange;
+import com.tecsup.demo.event.SubmissionChangedEvent;
+import com.tecsup.demo.repository.SubmissionRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Servicio que aplica las fechas límite de las tareas sobre las entregas.
+ * Cada método procesa un solo bloque en su propia transacción, de modo que los bloqueos
+ * duran lo que tarda un bloque y no toda la pasada.
+ */
+@Service
+@Transactional
+public class SubmissionDeadlineService {
+
+    private final SubmissionRepository submissionRepository;
+    private final SubmissionService submissionService;
+    private final UserService userService;
+    private final TaskService taskService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SubmissionDeadlineService(SubmissionRepository submissionRepository, SubmissionService submissionService,
+                                     UserService userService, TaskService taskService,
+                                     ApplicationEventPublisher eventPublisher) {
+        this.submissionRepository = submissionRepository;
+        this.submissionService = submissionService;
+        this.userService = userService;
+        this.taskService = taskService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Marca como LATE un bloque de entregas SUBMITTED posteriores a la fecha límite de su tarea.
+     * Primero bloquea las entregas candidatas y luego las actualiza por ID con un único UPDATE; como
+     * el cambio no pasa por las entidades, publica el evento de cambios con las filas bloqueadas para
+     * que agregados, contadores y almacén columnar se mantengan al día.
+     *
+     * @param chunkSize Número máximo de entregas del bloque
+     * @return Número de entregas marcadas
+     */
+    public int markLateSubmissions(int chunkSize) {
+        List<Submission> candidates = submissionRepository.findLateCandidatesForUpdate(PageRequest.of(0, chunkSize));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(candidates.size());
+        List<SubmissionChange> changes = new ArrayList<>(candidates.size());
+        for (Submission submission : candidates) {
+            Submission.Snapshot before = submission.snapshot();
+            ids.add(submission.getId());
+            changes.add(new SubmissionChange(submission.getId(), before,
+                    new Submission.Snapshot(before.getUserId(), before.getTaskId(), before.getGrade(),
+                            Submission.SubmissionStatus.LATE, before.getSubmissionDate())));
+        }
+        submissionRepository.markLate(ids, LocalDateTime.now());
+        eventPublisher.publishEvent(new SubmissionChangedEvent(changes));
+        return changes.size();
+    }
+
+    /**
+     * Crea entregas PENDING para un bloque de estudiantes que no entregaron una tarea activa ya vencida.
+     * Solo revisa las tareas que vencieron desde que se generaron sus filas pendientes: cuando un bloque
+     * llega incompleto, sus tareas quedan marcadas con la fecha límite procesada y las siguientes pasadas
+     * ya no las recorren, salvo que la fecha límite cambie.
+     * La fecha de entrega de la fila pendiente es la fecha límite de la tarea; si el estudiante entrega
+     * después, la creación de la entrega actualiza esa misma fila.
+     *
+     * @param chunkSize Número máximo de entregas del bloque
+     * @return Número de entregas pendientes creadas
+     */
+    public int createPendingSubmissions(int chunkSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> taskIds = submissionRepository.findTasksAwaitingPending(now, PageRequest.of(0, chunkSize));
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> missing = submissionRepository.findMissingSubmissions(
+                User.UserRole.STUDENT, taskIds, PageRequest.of(0, chunkSize));
+        if (missing.size() < chunkSize) {
+            // Este bloque completa las filas pendientes de todas estas tareas
+            submissionRepository.markPendingGenerated(taskIds, now);
+        }
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        List<Submission> submissions = new ArrayList<>(missing.size());
+        for (Object[] row : missing) {
+            Submission submission = new Submission();
+            submission.setUser(userService.getReference((Long) row[0]));
+            submission.setTask(taskService.getReference((Long) row[1]));
+            submission.setSubmissionDate((LocalDateTime) row[2]);
+            submission.setStatus(Submission.SubmissionStatus.PENDING);
+            submissions.add(submission);
+        }
+        submissionService.saveAll(submissions);
+        return submissions.size();
+    }
+}
@@ -0,0 +1,388 @@
+package com.tecsup.demo.service;
+
+import com.tecsup.demo.dto.SubmissionFeedEventDTO;
+import com.tecsup.demo.entity.Submission;
+import com.tecsup.demo.event.SubmissionChange;
+import com.tecsup.demo.event.SubmissionChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Distribuye por Server-Sent Events los cambios de entregas a los suscriptores de cada tarea.
+ *
+ * Las conexiones inactivas no ocupan hilos: Spring MVC las mantiene en modo asíncrono y solo
+ * se escribe cuando hay algo que enviar. Cada suscriptor tiene un búfer acotado; si un cliente
+ * lento lo llena, se descartan los eventos más antiguos y se le avisa con un evento "overflow"
+ * para que recargue la lista. El envío lo hace un pool propio y pequeño, de modo que el hilo
+ * que confirma la transacción nunca espera a la red.
+ *
+ * Una escritura a un cliente que no lee puede bloquear su hilo hasta que el contenedor la corte.
+ * Si un envío supera submissions.feed.write-timeout-ms, el suscriptor se expulsa (no recibe más
+ * eventos y su conexión se cierra cuando la escritura termine) y el pool suma un hilo mientras esa
+ * escritura siga bloqueada, hasta submissions.feed.max-threads, para que el resto no espere.
+ */
+@Component
+public class SubmissionFeedHub {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionFeedHub.class);
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final Map<Long, Set<Subscriber>> subscribersByTask = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final int maxThreads;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long writeTimeoutNanos;
+    private int stalledSenders;
+
+    public SubmissionFeedHub(@Value("${submissions.feed.threads:2}") int threads,
+                             @Value("${submissions.feed.max-threads:16}") int maxThreads,
+                             @Value("${submissions.feed.buffer-size:64}") int bufferSize,
+                             @Value("${submissions.feed.max-subscribers:5000}") int maxSubscribers,
+                             @Value("${submissions.feed.timeout-ms:1800000}") long timeoutMillis,
+                             @Value("${submissions.feed.write-timeout-ms:10000}") long writeTimeoutMillis) {
+        AtomicInteger sequence = new AtomicInteger();
+        // Cada suscriptor tiene a lo sumo un envío en cola, así que la cola nunca supera el máximo de suscriptores
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxSubscribers),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "submission-feed-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.threads = threads;
+        this.maxThreads = Math.max(threads, maxThreads);
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+    }
+
+    /**
+     * Suscribe un cliente a los cambios de las entregas de una tarea
+     *
+     * @param taskId ID de la tarea
+     * @return Emisor de la conexión SSE
+     * @throws RejectedExecutionException Si se alcanzó el máximo de suscriptores
+     */
+    public SseEmitter subscribe(Long taskId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RejectedExecutionException("Se alcanzó el máximo de " + maxSubscribers + " suscriptores");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(taskId, emitter);
+        subscribersByTask.compute(taskId, (id, subscribers) -> {
+            Set<Subscriber> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> {
+            // Al completar el emisor la conexión se cierra sin error; el cliente vuelve a suscribirse
+            unsubscribe(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        // Envía las cabeceras de inmediato para que el cliente sepa que la conexión está abierta
+        try {
+            emitter.send(SseEmitter.event().comment("conectado"));
+        } catch (IOException e) {
+            unsubscribe(subscriber);
+        }
+        return emitter;
+    }
+
+    /**
+     * Número de suscriptores conectados en este nodo
+     *
+     * @return Suscriptores activos
+     */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Encola los cambios confirmados para los suscriptores de cada tarea afectada
+     *
+     * @param event Evento con los cambios de entregas
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSubmissionChanged(SubmissionChangedEvent event) {
+        if (subscribersByTask.isEmpty()) {
+            return;
+        }
+        for (SubmissionChange change : event.getChanges()) {
+            Submission.Snapshot before = change.getBefore();
+            Submission.Snapshot after = change.getAfter();
+            if (after == null) {
+                publish(toEvent(SubmissionFeedEventDTO.Type.DELETED, change.getSubmissionId(), before));
+                continue;
+            }
+            if (before != null && !Objects.equals(before.getTaskId(), after.getTaskId())) {
+                // La entrega pasó a otra tarea: desaparece de la anterior y aparece en la nueva
+                publish(toEvent(SubmissionFeedEventDTO.Type.DELETED, change.getSubmissionId(), before));
+                before = null;
+            }
+            publish(toEvent(typeOf(before, after), change.getSubmissionId(), after));
+        }
+    }
+
+    /**
+     * Envía un comentario a cada suscriptor sin eventos pendientes para mantener abierta la conexión
+     * a través de proxies y detectar los clientes que se desconectaron
+     */
+    @Scheduled(fixedDelayString = "${submissions.feed.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> subscribers : subscribersByTask.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offerIfIdle(HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Expulsa a los suscriptores cuyo envío lleva bloqueado más que el timeout de escritura
+     * y compensa en el pool los hilos que siguen esperando a esos clientes
+     */
+    @Scheduled(fixedDelayString = "${submissions.feed.write-check-interval-ms:1000}")
+    public void evictStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> subscribers : subscribersByTask.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.markStalled(now)) {
+                    log.debug("Suscriptor de la tarea {} expulsado: el envío superó el timeout de escritura", subscriber.taskId);
+                    unsubscribe(subscriber);
+                    adjustStalledSenders(1);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        for (Set<Subscriber> subscribers : subscribersByTask.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private void publish(SubmissionFeedEventDTO event) {
+        Set<Subscriber> subscribers = subscribersByTask.get(event.getTaskId());
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribersByTask.computeIfPresent(subscriber.taskId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        subscriberCount.decrementAndGet();
+    }
+
+    /**
+     * Ajusta el tamaño del pool a los hilos base más los bloqueados en un envío, sin superar el máximo
+     */
+    private synchronized void adjustStalledSenders(int delta) {
+        stalledSenders += delta;
+        int size = Math.min(maxThreads, threads + stalledSenders);
+        if (size > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        } else {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+    }
+
+    private static SubmissionFeedEventDTO.Type typeOf(Submission.Snapshot before, Submission.Snapshot after) {
+        if (before == null) {
+            return SubmissionFeedEventDTO.Type.CREATED;
+        }
+        boolean graded = after.getStatus() == Submission.SubmissionStatus.GRADED
+                && (before.getStatus() != Submission.SubmissionStatus.GRADED
+                        || !Objects.equals(before.getGrade(), after.getGrade()));
+        return graded ? SubmissionFeedEventDTO.Type.GRADED : SubmissionFeedEventDTO.Type.UPDATED;
+    }
+
+    private static SubmissionFeedEventDTO toEvent(SubmissionFeedEventDTO.Type type, Long submissionId,
+                                                  Submission.Snapshot snapshot) {
+        return new SubmissionFeedEventDTO(type, submissionId, snapshot.getTaskId(), snapshot.getUserId(),
+                snapshot.getStatus(), snapshot.getGrade(), snapshot.getSubmissionDate());
+    }
+
+    /**
+     * Conexión de un cliente con su búfer de eventos pendientes. Solo un hilo a la vez envía
+     * los eventos de un mismo suscriptor.
+     */
+    private final class Subscriber {
+
+        private final Long taskId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Object> buffer = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean stalled = new AtomicBoolean();
+        // Inicio (System.nanoTime) del envío en curso, 0 si no hay ninguno, y si su hilo se compensó en el pool
+        private long sendStartedAt;
+        private boolean compensated;
+        private int dropped;
+
+        private Subscriber(Long taskId, SseEmitter emitter) {
+            this.taskId = taskId;
+            this.emitter = emitter;
+        }
+
+        private void offer(Object item) {
+            synchronized (this) {
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    dropped++;
+                }
+                buffer.addLast(item);
+            }
+            scheduleDrain();
+        }
+
+        private void offerIfIdle(Object item) {
+            synchronized (this) {
+                if (!buffer.isEmpty()) {
+                    return;
+                }
+                buffer.addLast(item);
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (closed.get() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // El pool se está cerrando; los eventos quedan en el búfer
+                draining.set(false);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<Object> items;
+                int lost;
+                synchronized (this) {
+                    items = new ArrayList<>(buffer);
+                    buffer.clear();
+                    lost = dropped;
+                    dropped = 0;
+                }
+                if (items.isEmpty()) {
+                    draining.set(false);
+                    // Un evento pudo llegar entre vaciar el búfer y liberar el indicador
+                    synchronized (this) {
+                        if (buffer.isEmpty() || !draining.compareAndSet(false, true)) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                if (!send(items, lost)) {
+                    return;
+                }
+                if (stalled.get()) {
+                    // La escritura bloqueada terminó después de la expulsión: se cierra la conexión
+                    emitter.complete();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Marca al suscriptor como expulsado si su envío en curso superó el timeout de escritura
+         */
+        private synchronized boolean markStalled(long now) {
+            if (sendStartedAt == 0 || now - sendStartedAt <= writeTimeoutNanos || !stalled.compareAndSet(false, true)) {
+                return false;
+            }
+            compensated = true;
+            return true;
+        }
+
+        private boolean send(List<Object> items, int lost) {
+            synchronized (this) {
+                sendStartedAt = System.nanoTime();
+            }
+            try {
+                if (lost > 0) {
+                    emitter.send(SseEmitter.event().name("overflow").data(Map.of("dropped", lost), MediaType.APPLICATION_JSON));
+                }
+                for (Object item : items) {
+                    if (closed.get()) {
+                        break;
+                    }
+                    if (item == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event().name("submission").data(item, MediaType.APPLICATION_JSON));
+                    }
+                }
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // El cliente se desconectó o la conexión expiró; el contenedor completa la solicitud
+                log.debug("Suscriptor de la tarea {} desconectado: {}", taskId, e.getMessage());
+                unsubscribe(this);
+                return false;
+            } finally {
+                boolean release;
+                synchronized (this) {
+                    sendStartedAt = 0;
+                    release = compensated;
+                    compensated = false;
+                }
+                if (release) {
+                    adjustStalledSenders(-1);
+                }
+            }
+        }
+    }
+}
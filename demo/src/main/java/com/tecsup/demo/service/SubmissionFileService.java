@@ -0,0 +1,149 @@
+package com.tecsup.demo.service;
+
+import com.tecsup.demo.entity.User;
+import com.tecsup.demo.repository.SubmissionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Servicio de descarga de los archivos adjuntados a las entregas.
+ * Resuelve las URLs del almacén local, controla quién puede descargar cada archivo
+ * y genera al vuelo el ZIP con todos los archivos de una tarea.
+ */
+@Service
+public class SubmissionFileService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionFileService.class);
+
+    private final SubmissionRepository submissionRepository;
+    private final FileStorageService fileStorageService;
+    private final long archiveTimeoutMillis;
+
+    public SubmissionFileService(SubmissionRepository submissionRepository, FileStorageService fileStorageService,
+                                 @Value("${submissions.files.archive-timeout-ms:1800000}") long archiveTimeoutMillis) {
+        this.submissionRepository = submissionRepository;
+        this.fileStorageService = fileStorageService;
+        this.archiveTimeoutMillis = archiveTimeoutMillis;
+    }
+
+    /**
+     * Tiempo máximo de la descarga del ZIP de una tarea; se aplica como timeout de la respuesta asíncrona que lo transmite
+     *
+     * @return Timeout en milisegundos
+     */
+    public long getArchiveTimeoutMillis() {
+        return archiveTimeoutMillis;
+    }
+
+    /**
+     * Obtiene el hash de un archivo del almacén local a partir de su URL
+     *
+     * @param fileUrl URL guardada en la entrega
+     * @return Hash si la URL apunta al almacén local
+     */
+    public Optional<String> hashOf(String fileUrl) {
+        if (fileUrl == null || !fileUrl.startsWith(SubmissionService.FILE_URL_PREFIX)) {
+            return Optional.empty();
+        }
+        return Optional.of(fileUrl.substring(SubmissionService.FILE_URL_PREFIX.length()));
+    }
+
+    /**
+     * Busca en el almacén el archivo correspondiente a un hash
+     *
+     * @param hash Hash SHA-256 del contenido
+     * @return Ruta del archivo si existe
+     */
+    public Optional<Path> find(String hash) {
+        return fileStorageService.find(hash);
+    }
+
+    /**
+     * Verifica si un usuario puede descargar un archivo del almacén: profesores y administradores
+     * siempre; los estudiantes solo si alguna de sus entregas lo referencia
+     *
+     * @param user Usuario autenticado
+     * @param hash Hash del archivo
+     * @return true si puede descargarlo
+     */
+    public boolean canDownload(User user, String hash) {
+        if (user.getRole() != User.UserRole.STUDENT) {
+            return true;
+        }
+        return submissionRepository.existsByUserIdAndFileUrl(user.getId(), SubmissionService.FILE_URL_PREFIX + hash);
+    }
+
+    /**
+     * Escribe un ZIP con los archivos de todas las entregas de una tarea.
+     * Los archivos se copian uno a uno al flujo de salida sin cargarlos completos en memoria;
+     * cada uno queda en una carpeta con el nombre de usuario del estudiante. Los nombres de las entradas
+     * se limpian con cleanFileName para que ninguna pueda salir de su carpeta al extraer el ZIP. No abre una transacción:
+     * solo la consulta inicial usa la base de datos, no la copia de los archivos.
+     *
+     * @param taskId ID de la tarea
+     * @param output Flujo de salida de la respuesta
+     * @throws IOException Si falla la lectura de un archivo o la escritura de la respuesta
+     */
+    public void writeTaskArchive(Long taskId, OutputStream output) throws IOException {
+        List<Object[]> files = submissionRepository.findLocalFilesByTask(taskId, SubmissionService.FILE_URL_PREFIX);
+
+        ZipOutputStream zip = new ZipOutputStream(output);
+        // Compresión rápida: el ZIP se genera mientras se descarga y el ritmo importa más que el tamaño
+        zip.setLevel(Deflater.BEST_SPEED);
+        Set<String> entryNames = new HashSet<>();
+        for (Object[] file : files) {
+            String username = cleanFileName((String) file[0]);
+            String hash = hashOf((String) file[2]).orElse(null);
+            Optional<Path> path = fileStorageService.find(hash);
+            if (path.isEmpty()) {
+                log.warn("Archivo {} de {} no encontrado en el almacén; se omite del ZIP", hash, username);
+                continue;
+            }
+
+            String fileName = file[1] != null ? cleanFileName((String) file[1]) : hash;
+            String entryName = username + "/" + fileName;
+            if (!entryNames.add(entryName)) {
+                entryName = username + "/" + hash + "-" + fileName;
+                entryNames.add(entryName);
+            }
+
+            ZipEntry entry = new ZipEntry(entryName);
+            entry.setLastModifiedTime(Files.getLastModifiedTime(path.get()));
+            zip.putNextEntry(entry);
+            Files.copy(path.get(), zip);
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * Conserva solo el último segmento del nombre, sin caracteres de control y con a lo sumo 255 caracteres;
+     * los nombres vacíos, "." y ".." se reemplazan por "archivo"
+     *
+     * @param fileName Nombre recibido o guardado
+     * @return Nombre seguro para el almacén y para las entradas del ZIP
+     */
+    public static String cleanFileName(String fileName) {
+        String name = fileName == null ? "" : fileName.replaceAll("\\p{Cntrl}", "");
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1).trim();
+        if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+            name = "archivo";
+        }
+        return name.length() > 255 ? name.substring(name.length() - 255) : name;
+    }
+}
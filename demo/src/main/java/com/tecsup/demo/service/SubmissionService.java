@@ -1,15 +1,53 @@
 package com.tecsup.demo.service;
 
+import com.tecsup.demo.dto.CursorPage;
+import com.tecsup.demo.dto.GradeBatchItemDTO;
+import com.tecsup.demo.dto.GradeBatchResultDTO;
+import com.tecsup.demo.dto.SubmissionView;
 import com.tecsup.demo.entity.Submission;
 import com.tecsup.demo.entity.Task;
+import com.tecsup.demo.entity.GradeAggregate;
 import com.tecsup.demo.entity.User;
+import com.tecsup.demo.event.SubmissionChange;
+import com.tecsup.demo.event.SubmissionChangedEvent;
 import com.tecsup.demo.repository.SubmissionRepository;
+import com.tecsup.demo.repository.TaskRepository;
+import com.tecsup.demo.util.CursorCodec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.data.domain.PageRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Servicio para operaciones relacionadas con entregas
@@ -18,10 +56,40 @@ import java.util.Optional;
 @Transactional
 public class SubmissionService {
 
+    /**
+     * Prefijo de fileUrl para los archivos del almacén local; le sigue el hash SHA-256 del contenido
+     */
+    public static final String FILE_URL_PREFIX = "/api/files/";
+
     private final SubmissionRepository submissionRepository;
+    private final TaskRepository taskRepository;
+    private final GradeAggregateService gradeAggregateService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PageLimits pageLimits;
+    private final Validator validator;
+    private final int maxGradeBatchItems;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, IdempotentResult> idempotentResults;
 
-    public SubmissionService(SubmissionRepository submissionRepository) {
+    public SubmissionService(SubmissionRepository submissionRepository, TaskRepository taskRepository,
+                             GradeAggregateService gradeAggregateService,
+                             ApplicationEventPublisher eventPublisher, PageLimits pageLimits, Validator validator,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${submissions.grades.batch-max-items:1000}") int maxGradeBatchItems,
+                             @Value("${submissions.idempotency.ttl-minutes:1440}") long idempotencyTtlMinutes,
+                             @Value("${submissions.idempotency.max-keys:10000}") long idempotencyMaxKeys) {
         this.submissionRepository = submissionRepository;
+        this.taskRepository = taskRepository;
+        this.gradeAggregateService = gradeAggregateService;
+        this.eventPublisher = eventPublisher;
+        this.pageLimits = pageLimits;
+        this.validator = validator;
+        this.maxGradeBatchItems = maxGradeBatchItems;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idempotentResults = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(idempotencyTtlMinutes))
+                .maximumSize(idempotencyMaxKeys)
+                .build();
     }
 
     /**
@@ -33,6 +101,17 @@ public class SubmissionService {
         return submissionRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de entregas (más recientes primero) paginada por cursor
+     * 
+     * @param limit Tamaño de la página; null usa el valor por defecto
+     * @param cursor Cursor de la página anterior; null para la primera página
+     * @return Página de entregas con el cursor de la siguiente página
+     */
+    public CursorPage<SubmissionView> findPage(Integer limit, String cursor) {
+        return findPage(null, limit, cursor);
+    }
+
     /**
      * Busca una entrega por su ID
      * 
@@ -43,6 +122,36 @@ public class SubmissionService {
         return submissionRepository.findById(id);
     }
 
+    /**
+     * Obtiene la vista de lectura de una entrega, con su estudiante y su tarea, en una sola consulta
+     * 
+     * @param id ID de la entrega
+     * @return Optional con la vista si existe
+     */
+    public Optional<SubmissionView> findViewById(Long id) {
+        return submissionRepository.findViewById(id);
+    }
+
+    /**
+     * Obtiene las vistas de lectura de las entregas de una tarea en una sola consulta
+     * 
+     * @param taskId ID de la tarea
+     * @return Vistas de las entregas (más recientes primero)
+     */
+    public List<SubmissionView> findViewsByTask(Long taskId) {
+        return submissionRepository.findViewsByTaskId(taskId);
+    }
+
+    /**
+     * Obtiene las vistas de lectura de las entregas de un usuario en una sola consulta
+     * 
+     * @param userId ID del usuario
+     * @return Vistas de las entregas (más recientes primero)
+     */
+    public List<SubmissionView> findViewsByUser(Long userId) {
+        return submissionRepository.findViewsByUserId(userId);
+    }
+
     /**
      * Busca una entrega por tarea y usuario
      * 
@@ -86,22 +195,229 @@ public class SubmissionService {
     }
 
     /**
-     * Guarda una entrega (crea o actualiza)
+     * Guarda una entrega (crea o actualiza) y publica el cambio para los agregados
      * 
      * @param submission Entrega a guardar
      * @return Entrega guardada
      */
     public Submission save(Submission submission) {
-        return submissionRepository.save(submission);
+        boolean isNew = submission.getId() == null;
+        Submission.Snapshot before = isNew ? null : submission.getPersistedState();
+
+        Submission saved = submissionRepository.save(submission);
+
+        // Una entidad desacoplada se fusiona sobre una copia recién cargada que conserva el estado previo
+        if (!isNew && before == null) {
+            before = saved.getPersistedState();
+        }
+        eventPublisher.publishEvent(new SubmissionChangedEvent(
+                new SubmissionChange(saved.getId(), before, saved.snapshot())));
+        return saved;
+    }
+
+    /**
+     * Crea la entrega de un estudiante o, si ya tiene una para la misma tarea, la actualiza.
+     * No consulta antes de insertar: la unicidad la garantiza la restricción uk_task_user, de modo que
+     * dos solicitudes simultáneas nunca crean dos entregas; la que pierde actualiza la existente.
+     * Con una clave de idempotencia, el reintento de una misma solicitud devuelve el resultado
+     * guardado sin volver a la base de datos; si llega mientras la original sigue en curso, espera su resultado.
+     * 
+     * @param candidate Entrega con el usuario autenticado y la referencia a la tarea
+     * @param idempotencyKey Clave de idempotencia enviada por el cliente; puede ser null
+     * @return Resultado con la entrega creada o actualizada
+     * @throws IllegalArgumentException Si la tarea no existe o la clave ya se usó con otros datos
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public UpsertResult upsert(Submission candidate, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return insertOrUpdate(candidate);
+        }
+
+        String cacheKey = candidate.getUser().getId() + ":" + idempotencyKey;
+        byte[] fingerprint = fingerprint(candidate);
+        while (true) {
+            IdempotentResult mine = new IdempotentResult(fingerprint, new CompletableFuture<>());
+            IdempotentResult previous = idempotentResults.asMap().putIfAbsent(cacheKey, mine);
+            if (previous == null) {
+                return executeIdempotent(cacheKey, mine, candidate);
+            }
+            if (!MessageDigest.isEqual(previous.fingerprint, fingerprint)) {
+                throw new IllegalArgumentException("La clave de idempotencia ya se usó con otra solicitud");
+            }
+            // Un reintento simultáneo espera a la solicitud original; si esta falló, lo vuelve a intentar
+            UpsertResult result;
+            try {
+                result = previous.result.join();
+            } catch (CompletionException | CancellationException e) {
+                idempotentResults.asMap().remove(cacheKey, previous);
+                continue;
+            }
+            return new UpsertResult(result.getOutcome(), result.getSubmission(), true);
+        }
+    }
+
+    /**
+     * Ejecuta la solicitud que reservó la clave de idempotencia y publica su resultado a los reintentos
+     * que esperan; un fallo o una entrega ya calificada liberan la clave
+     */
+    private UpsertResult executeIdempotent(String cacheKey, IdempotentResult entry, Submission candidate) {
+        UpsertResult result;
+        try {
+            result = insertOrUpdate(candidate);
+        } catch (RuntimeException e) {
+            idempotentResults.asMap().remove(cacheKey, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        if (result.getOutcome() == UpsertOutcome.ALREADY_GRADED) {
+            idempotentResults.asMap().remove(cacheKey, entry);
+        }
+        entry.result.complete(result);
+        return result;
+    }
+
+    private UpsertResult insertOrUpdate(Submission candidate) {
+        Long userId = candidate.getUser().getId();
+        Long taskId = candidate.getTask().getId();
+        try {
+            Submission created = transactionTemplate.execute(status -> {
+                Submission saved = save(candidate);
+                submissionRepository.flush();
+                return saved;
+            });
+            return new UpsertResult(UpsertOutcome.CREATED, SubmissionView.from(created), false);
+        } catch (DataIntegrityViolationException e) {
+            if (!violates(e, Submission.TASK_USER_CONSTRAINT)) {
+                // Cualquier otra restricción (p. ej. la clave foránea de una tarea inexistente) no es un conflicto de entrega
+                if (!taskRepository.existsById(taskId)) {
+                    throw new IllegalArgumentException("Tarea no encontrada");
+                }
+                throw e;
+            }
+            return transactionTemplate.execute(status -> updateExisting(userId, taskId, candidate));
+        }
+    }
+
+    /**
+     * Asocia a una entrega un archivo ya guardado en el almacén de archivos
+     * 
+     * @param id ID de la entrega
+     * @param stored Archivo guardado
+     * @param fileName Nombre original del archivo
+     * @return Optional con la entrega actualizada si existe
+     */
+    public Optional<Submission> attachFile(Long id, FileStorageService.StoredFile stored, String fileName) {
+        return submissionRepository.findById(id).map(submission -> {
+            submission.setFileUrl(FILE_URL_PREFIX + stored.getHash());
+            submission.setFileName(fileName);
+            submission.setFileSize(stored.getSize());
+            return save(submission);
+        });
+    }
+
+    /**
+     * Guarda varias entregas en una sola operación y publica un único evento con todos los cambios.
+     * Las sentencias se agrupan en lotes JDBC al confirmar la transacción.
+     * 
+     * @param submissions Entregas a guardar
+     * @return Entregas guardadas
+     */
+    public List<Submission> saveAll(List<Submission> submissions) {
+        List<Submission.Snapshot> before = new ArrayList<>(submissions.size());
+        for (Submission submission : submissions) {
+            before.add(submission.getId() == null ? null : submission.getPersistedState());
+        }
+
+        List<Submission> saved = submissionRepository.saveAll(submissions);
+
+        List<SubmissionChange> changes = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            Submission submission = saved.get(i);
+            Submission.Snapshot previous = before.get(i);
+            // Igual que en save(): una entidad desacoplada conserva el estado previo en la copia fusionada
+            if (previous == null && submissions.get(i).getId() != null) {
+                previous = submission.getPersistedState();
+            }
+            changes.add(new SubmissionChange(submission.getId(), previous, submission.snapshot()));
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new SubmissionChangedEvent(changes));
+        }
+        return saved;
+    }
+
+    /**
+     * Califica varias entregas en una sola transacción.
+     * Carga todas las entregas con una consulta y reporta el resultado de cada elemento;
+     * los elementos inválidos o inexistentes no impiden aplicar los demás.
+     * 
+     * @param items Calificaciones a aplicar
+     * @return Resultado de cada elemento, en el mismo orden recibido
+     */
+    public List<GradeBatchResultDTO> gradeBatch(List<GradeBatchItemDTO> items) {
+        if (items.size() > maxGradeBatchItems) {
+            throw new IllegalArgumentException("El lote no puede superar las " + maxGradeBatchItems + " calificaciones");
+        }
+
+        GradeBatchResultDTO[] results = new GradeBatchResultDTO[items.size()];
+        Map<Long, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            GradeBatchItemDTO item = items.get(i);
+            Long submissionId = item != null ? item.getSubmissionId() : null;
+            Set<ConstraintViolation<GradeBatchItemDTO>> violations =
+                    item != null ? validator.validate(item) : Set.of();
+            if (item == null) {
+                results[i] = invalid(null, "Elemento vacío");
+            } else if (!violations.isEmpty()) {
+                results[i] = invalid(submissionId, violations.iterator().next().getMessage());
+            } else if (positions.containsKey(submissionId)) {
+                results[i] = invalid(submissionId, "La entrega aparece más de una vez en el lote");
+            } else {
+                positions.put(submissionId, i);
+            }
+        }
+
+        List<Submission> toSave = new ArrayList<>(positions.size());
+        if (!positions.isEmpty()) {
+            for (Submission submission : submissionRepository.findAllWithTaskByIdIn(positions.keySet())) {
+                int position = positions.remove(submission.getId());
+                GradeBatchItemDTO item = items.get(position);
+
+                Double maxGrade = submission.getTask().getMaxGrade();
+                if (maxGrade != null && item.getGrade() > maxGrade) {
+                    results[position] = invalid(submission.getId(), "La nota supera la nota máxima de la tarea (" + maxGrade + ")");
+                    continue;
+                }
+
+                submission.setGrade(item.getGrade());
+                submission.setComments(item.getComments());
+                submission.setStatus(Submission.SubmissionStatus.GRADED);
+                toSave.add(submission);
+                results[position] = new GradeBatchResultDTO(submission.getId(), GradeBatchResultDTO.Outcome.UPDATED, null);
+            }
+        }
+
+        // Los IDs que no se encontraron quedan en el mapa
+        for (Map.Entry<Long, Integer> missing : positions.entrySet()) {
+            results[missing.getValue()] = new GradeBatchResultDTO(missing.getKey(),
+                    GradeBatchResultDTO.Outcome.NOT_FOUND, "Entrega no encontrada");
+        }
+
+        saveAll(toSave);
+        return Arrays.asList(results);
     }
 
     /**
-     * Elimina una entrega por su ID
+     * Elimina una entrega por su ID y publica el cambio para los agregados
      * 
      * @param id ID de la entrega a eliminar
      */
     public void delete(Long id) {
-        submissionRepository.deleteById(id);
+        submissionRepository.findById(id).ifPresent(submission -> {
+            Submission.Snapshot before = submission.getPersistedState();
+            submissionRepository.delete(submission);
+            eventPublisher.publishEvent(new SubmissionChangedEvent(new SubmissionChange(id, before, null)));
+        });
     }
 
     /**
@@ -114,6 +430,18 @@ public class SubmissionService {
         return submissionRepository.findByStatus(status);
     }
 
+    /**
+     * Obtiene una página de entregas con un estado (más recientes primero) paginada por cursor
+     * 
+     * @param status Estado de las entregas
+     * @param limit Tamaño de la página; null usa el valor por defecto
+     * @param cursor Cursor de la página anterior; null para la primera página
+     * @return Página de entregas con el cursor de la siguiente página
+     */
+    public CursorPage<SubmissionView> findPageByStatus(Submission.SubmissionStatus status, Integer limit, String cursor) {
+        return findPage(status, limit, cursor);
+    }
+
     /**
      * Busca entregas calificadas
      * 
@@ -153,22 +481,161 @@ public class SubmissionService {
     }
 
     /**
-     * Calcula el promedio de calificaciones de un usuario
+     * Obtiene el promedio de calificaciones de un usuario desde su agregado
      * 
      * @param user Usuario
-     * @return Promedio de calificaciones
+     * @return Promedio de calificaciones o null si no tiene notas
      */
     public Double calculateAverageGradeForUser(User user) {
-        return submissionRepository.calculateAverageGradeByUser(user);
+        return gradeAggregateService.findByUser(user.getId())
+                .map(GradeAggregate::getAverage)
+                .orElse(null);
     }
 
     /**
-     * Calcula el promedio de calificaciones de una tarea
+     * Obtiene el promedio de calificaciones de una tarea desde su agregado
      * 
      * @param task Tarea
-     * @return Promedio de calificaciones
+     * @return Promedio de calificaciones o null si no tiene notas
      */
     public Double calculateAverageGradeForTask(Task task) {
-        return submissionRepository.calculateAverageGradeByTask(task);
+        return gradeAggregateService.findByTask(task.getId())
+                .map(GradeAggregate::getAverage)
+                .orElse(null);
+    }
+
+    /**
+     * Lee una página por clave (fecha de entrega, id) en orden descendente; el costo no depende de la profundidad
+     */
+    private CursorPage<SubmissionView> findPage(Submission.SubmissionStatus status, Integer limit, String cursor) {
+        PageRequest page = pageLimits.resolve(limit);
+
+        List<SubmissionView> submissions;
+        if (cursor == null || cursor.isBlank()) {
+            submissions = status == null
+                    ? submissionRepository.findPageOrderedBySubmissionDate(page)
+                    : submissionRepository.findPageByStatusOrderedBySubmissionDate(status, page);
+        } else {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            LocalDateTime submissionDate;
+            Long id;
+            try {
+                submissionDate = LocalDateTime.parse(parts[0]);
+                id = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido", e);
+            }
+            submissions = status == null
+                    ? submissionRepository.findPageOrderedBySubmissionDateAfter(submissionDate, id, page)
+                    : submissionRepository.findPageByStatusOrderedBySubmissionDateAfter(status, submissionDate, id, page);
+        }
+
+        String nextCursor = null;
+        if (submissions.size() == page.getPageSize()) {
+            SubmissionView last = submissions.get(submissions.size() - 1);
+            nextCursor = CursorCodec.encode(last.getSubmissionDate(), last.getId());
+        }
+        return new CursorPage<>(submissions, nextCursor);
+    }
+
+    private static GradeBatchResultDTO invalid(Long submissionId, String message) {
+        return new GradeBatchResultDTO(submissionId, GradeBatchResultDTO.Outcome.INVALID, message);
+    }
+
+    /**
+     * Aplica los datos de la solicitud a la entrega que ya existía para el usuario y la tarea
+     */
+    private UpsertResult updateExisting(Long userId, Long taskId, Submission candidate) {
+        // Bloqueada, para que una calificación concurrente no quede sobrescrita tras comprobar el estado
+        Submission existing = submissionRepository.findByUserIdAndTaskIdForUpdate(userId, taskId)
+                .orElseThrow(() -> new IllegalStateException("La entrega existente se eliminó mientras se actualizaba"));
+        if (existing.getStatus() == Submission.SubmissionStatus.GRADED) {
+            return new UpsertResult(UpsertOutcome.ALREADY_GRADED, SubmissionView.from(existing), false);
+        }
+
+        existing.setSubmissionDate(candidate.getSubmissionDate());
+        existing.setStatus(candidate.getStatus());
+        existing.setGrade(candidate.getGrade());
+        existing.setComments(candidate.getComments());
+        existing.setFileUrl(candidate.getFileUrl());
+        existing.setFileName(candidate.getFileName());
+        existing.setFileSize(candidate.getFileSize());
+        return new UpsertResult(UpsertOutcome.UPDATED, SubmissionView.from(save(existing)), false);
+    }
+
+    /**
+     * Indica si la excepción proviene de la restricción indicada; el nombre se compara sin distinguir
+     * mayúsculas porque algunos motores lo informan con esquema o sufijos (p. ej. H2)
+     */
+    /**
+     * Huella SHA-256 de los datos de la solicitud; cada campo va precedido de su longitud para que
+     * dos solicitudes distintas no puedan producir la misma secuencia de bytes
+     */
+    private static byte[] fingerprint(Submission candidate) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible", e);
+        }
+        Object[] fields = {candidate.getTask().getId(), candidate.getSubmissionDate(), candidate.getStatus(),
+                candidate.getGrade(), candidate.getComments(), candidate.getFileUrl(), candidate.getFileName(),
+                candidate.getFileSize()};
+        for (Object field : fields) {
+            if (field == null) {
+                digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+                continue;
+            }
+            byte[] bytes = field.toString().getBytes(StandardCharsets.UTF_8);
+            digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+            digest.update(bytes);
+        }
+        return digest.digest();
+    }
+
+    private static boolean violates(DataIntegrityViolationException e, String constraintName) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String violated = violation.getConstraintName();
+                return violated != null && violated.toLowerCase(Locale.ROOT).contains(constraintName);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resultado posible de crear o actualizar una entrega
+     */
+    public enum UpsertOutcome {
+        CREATED,
+        UPDATED,
+        ALREADY_GRADED
+    }
+
+    /**
+     * Resultado de {@link #upsert(Submission, String)}
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class UpsertResult {
+
+        private final UpsertOutcome outcome;
+        private final SubmissionView submission;
+
+        /**
+         * true si se devolvió el resultado guardado para la misma clave de idempotencia
+         */
+        private final boolean replayed;
+    }
+
+    /**
+     * Resultado de una clave de idempotencia junto con la huella de la solicitud original; el resultado
+     * se completa cuando termina la solicitud que reservó la clave
+     */
+    @AllArgsConstructor
+    private static class IdempotentResult {
+
+        private final byte[] fingerprint;
+        private final CompletableFuture<UpsertResult> result;
     }
 }
@@ -1,11 +1,15 @@
 package com.tecsup.demo.service;
 
+import com.tecsup.demo.dto.CursorPage;
 import com.tecsup.demo.entity.Task;
 import com.tecsup.demo.repository.TaskRepository;
+import com.tecsup.demo.util.CursorCodec;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,9 +21,11 @@ import java.util.Optional;
 public class TaskService {
 
     private final TaskRepository taskRepository;
+    private final PageLimits pageLimits;
 
-    public TaskService(TaskRepository taskRepository) {
+    public TaskService(TaskRepository taskRepository, PageLimits pageLimits) {
         this.taskRepository = taskRepository;
+        this.pageLimits = pageLimits;
     }
 
     /**
@@ -31,6 +37,17 @@ public class TaskService {
         return taskRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de tareas ordenadas por fecha de vencimiento, paginada por cursor
+     * 
+     * @param limit Tamaño de la página; null usa el valor por defecto
+     * @param cursor Cursor de la página anterior; null para la primera página
+     * @return Página de tareas con el cursor de la siguiente página
+     */
+    public CursorPage<Task> findPage(Integer limit, String cursor) {
+        return findPage(null, limit, cursor);
+    }
+
     /**
      * Busca una tarea por su ID
      * 
@@ -41,6 +58,16 @@ public class TaskService {
         return taskRepository.findById(id);
     }
 
+    /**
+     * Obtiene una referencia a la tarea sin consultarla; la existencia se verifica al usarla en una escritura
+     * 
+     * @param id ID de la tarea
+     * @return Referencia a la tarea
+     */
+    public Task getReference(Long id) {
+        return taskRepository.getReferenceById(id);
+    }
+
     /**
      * Guarda una tarea (crea o actualiza)
      * 
@@ -51,6 +78,16 @@ public class TaskService {
         return taskRepository.save(task);
     }
 
+    /**
+     * Guarda varias tareas en una sola operación; los INSERT se agrupan en lotes JDBC
+     * 
+     * @param tasks Tareas a guardar
+     * @return Tareas guardadas
+     */
+    public List<Task> saveAll(List<Task> tasks) {
+        return taskRepository.saveAll(tasks);
+    }
+
     /**
      * Elimina una tarea por su ID
      * 
@@ -70,6 +107,18 @@ public class TaskService {
         return taskRepository.findByStatus(status);
     }
 
+    /**
+     * Obtiene una página de tareas con un estado ordenadas por fecha de vencimiento, paginada por cursor
+     * 
+     * @param status Estado de las tareas
+     * @param limit Tamaño de la página; null usa el valor por defecto
+     * @param cursor Cursor de la página anterior; null para la primera página
+     * @return Página de tareas con el cursor de la siguiente página
+     */
+    public CursorPage<Task> findPageByStatus(Task.TaskStatus status, Integer limit, String cursor) {
+        return findPage(status, limit, cursor);
+    }
+
     /**
      * Busca tareas activas
      * 
@@ -98,4 +147,38 @@ public class TaskService {
     public List<Task> findTasksDueBefore(LocalDateTime date) {
         return taskRepository.findByDueDateBefore(date);
     }
+
+    /**
+     * Lee una página por clave (vencimiento, id) en orden ascendente; el costo no depende de la profundidad
+     */
+    private CursorPage<Task> findPage(Task.TaskStatus status, Integer limit, String cursor) {
+        PageRequest page = pageLimits.resolve(limit);
+
+        List<Task> tasks;
+        if (cursor == null || cursor.isBlank()) {
+            tasks = status == null
+                    ? taskRepository.findPageOrderedByDueDate(page)
+                    : taskRepository.findPageByStatusOrderedByDueDate(status, page);
+        } else {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            LocalDateTime dueDate;
+            Long id;
+            try {
+                dueDate = LocalDateTime.parse(parts[0]);
+                id = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido", e);
+            }
+            tasks = status == null
+                    ? taskRepository.findPageOrderedByDueDateAfter(dueDate, id, page)
+                    : taskRepository.findPageByStatusOrderedByDueDateAfter(status, dueDate, id, page);
+        }
+
+        String nextCursor = null;
+        if (tasks.size() == page.getPageSize()) {
+            Task last = tasks.get(tasks.size() - 1);
+            nextCursor = CursorCodec.encode(last.getDueDate(), last.getId());
+        }
+        return new CursorPage<>(tasks, nextCursor);
+    }
 }
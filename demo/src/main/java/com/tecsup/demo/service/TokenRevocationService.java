@@ -0,0 +1,126 @@
+package com.tecsup.demo.service;
+
+import com.tecsup.demo.entity.RevokedToken;
+import com.tecsup.demo.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registra los tokens JWT revocados y responde si un token está revocado sin consultar la base de datos.
+ *
+ * La tabla revoked_tokens es la fuente de verdad y en memoria se mantiene el conjunto exacto de los jti
+ * revocados vigentes. Solo se revocan tokens que aún no expiran, así que el conjunto se mantiene pequeño
+ * (unos cientos de bytes por revocación) y cada consulta es una búsqueda en un hash sin falsos positivos;
+ * un filtro de Bloom delante no ahorraría trabajo. El conjunto se reconstruye al arrancar y al purgar las
+ * revocaciones expiradas, y se sincroniza periódicamente con las revocaciones registradas por otras instancias.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long syncOverlapSeconds;
+
+    private volatile Set<String> revoked;
+    private LocalDateTime lastSync;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${security.revocation.sync-overlap-seconds:60}") long syncOverlapSeconds) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.syncOverlapSeconds = syncOverlapSeconds;
+    }
+
+    /**
+     * Carga las revocaciones vigentes antes de que la aplicación atienda solicitudes
+     */
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * Indica si el token con el jti dado fue revocado
+     *
+     * @param jti Claim jti del token
+     * @return true si el token está revocado
+     */
+    public boolean isRevoked(String jti) {
+        return revoked.contains(jti);
+    }
+
+    /**
+     * Revoca un token hasta su expiración; revocar de nuevo el mismo token solo actualiza la fecha de revocación
+     *
+     * @param jti Claim jti del token
+     * @param userId ID del usuario del token; puede ser null
+     * @param expiresAt Expiración del token
+     */
+    public void revoke(String jti, Long userId, Date expiresAt) {
+        LocalDateTime expiration = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        revokedTokenRepository.save(new RevokedToken(jti, userId, expiration, LocalDateTime.now()));
+        // El registro ya está confirmado: una reconstrucción concurrente lo leyó de la base de datos o terminó antes de este bloque
+        synchronized (this) {
+            revoked.add(jti);
+        }
+    }
+
+    /**
+     * Incorpora las revocaciones registradas desde la última sincronización, incluidas las de otras instancias
+     *
+     * @return Número de revocaciones leídas
+     */
+    public int syncRecent() {
+        LocalDateTime now = LocalDateTime.now();
+        List<RevokedToken> recent;
+        synchronized (this) {
+            recent = revokedTokenRepository.findActiveRevokedSince(lastSync.minusSeconds(syncOverlapSeconds), now);
+            for (RevokedToken token : recent) {
+                revoked.add(token.getJti());
+            }
+            lastSync = now;
+        }
+        return recent.size();
+    }
+
+    /**
+     * Elimina las revocaciones de tokens ya expirados y reconstruye el conjunto en memoria
+     *
+     * @return Número de revocaciones eliminadas
+     */
+    public int purgeExpired() {
+        Integer deleted = transactionTemplate.execute(status -> revokedTokenRepository.deleteExpired(LocalDateTime.now()));
+        rebuild();
+        return deleted != null ? deleted : 0;
+    }
+
+    /**
+     * Reconstruye el conjunto en memoria con las revocaciones vigentes de la base de datos
+     */
+    private synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        List<RevokedToken> active = revokedTokenRepository.findActive(now);
+        Set<String> rebuilt = ConcurrentHashMap.newKeySet(active.size());
+        for (RevokedToken token : active) {
+            rebuilt.add(token.getJti());
+        }
+        revoked = rebuilt;
+        lastSync = now;
+        log.info("Conjunto de tokens revocados reconstruido con {} revocaciones vigentes", active.size());
+    }
+}
@@ -1,12 +1,20 @@
 package com.tecsup.demo.service;
 
+import com.tecsup.demo.dto.CursorPage;
 import com.tecsup.demo.entity.User;
+import com.tecsup.demo.event.UserChangedEvent;
 import com.tecsup.demo.repository.UserRepository;
+import com.tecsup.demo.util.CursorCodec;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Servicio para operaciones relacionadas con usuarios
@@ -16,9 +24,13 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final PageLimits pageLimits;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, PageLimits pageLimits, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.pageLimits = pageLimits;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -30,6 +42,17 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de usuarios ordenados por apellido y nombre, paginada por cursor
+     * 
+     * @param limit Tamaño de la página; null usa el valor por defecto
+     * @param cursor Cursor de la página anterior; null para la primera página
+     * @return Página de usuarios con el cursor de la siguiente página
+     */
+    public CursorPage<User> findPage(Integer limit, String cursor) {
+        return findPage(null, limit, cursor);
+    }
+
     /**
      * Busca un usuario por su ID
      * 
@@ -40,6 +63,16 @@ public class UserService {
         return userRepository.findById(id);
     }
 
+    /**
+     * Obtiene una referencia al usuario sin consultarlo; la existencia se verifica al usarla en una escritura
+     * 
+     * @param id ID del usuario
+     * @return Referencia al usuario
+     */
+    public User getReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
     /**
      * Busca un usuario por su nombre de usuario
      * 
@@ -67,15 +100,36 @@ public class UserService {
      * @return Usuario guardado
      */
     public User save(User user) {
+        if (user.getId() != null) {
+            eventPublisher.publishEvent(new UserChangedEvent(Set.of(user.getId())));
+        }
         return userRepository.save(user);
     }
 
+    /**
+     * Guarda varios usuarios en una sola operación; los INSERT se agrupan en lotes JDBC
+     * 
+     * @param users Usuarios a guardar
+     * @return Usuarios guardados
+     */
+    public List<User> saveAll(List<User> users) {
+        Set<Long> existingIds = users.stream()
+                .map(User::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (!existingIds.isEmpty()) {
+            eventPublisher.publishEvent(new UserChangedEvent(existingIds));
+        }
+        return userRepository.saveAll(users);
+    }
+
     /**
      * Elimina un usuario por su ID
      * 
      * @param id ID del usuario a eliminar
      */
     public void delete(Long id) {
+        eventPublisher.publishEvent(new UserChangedEvent(Set.of(id)));
         userRepository.deleteById(id);
     }
 
@@ -89,6 +143,18 @@ public class UserService {
         return userRepository.findByRole(role);
     }
 
+    /**
+     * Obtiene una página de usuarios con un rol ordenados por apellido y nombre, paginada por cursor
+     * 
+     * @param role Rol de los usuarios
+     * @param limit Tamaño de la página; null usa el valor por defecto
+     * @param cursor Cursor de la página anterior; null para la primera página
+     * @return Página de usuarios con el cursor de la siguiente página
+     */
+    public CursorPage<User> findPageByRole(User.UserRole role, Integer limit, String cursor) {
+        return findPage(role, limit, cursor);
+    }
+
     /**
      * Busca usuarios por nombre o apellido (búsqueda parcial)
      * 
@@ -118,4 +184,36 @@ public class UserService {
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
     }
+
+    /**
+     * Lee una página por clave (apellido, nombre, id) en orden ascendente; el costo no depende de la profundidad
+     */
+    private CursorPage<User> findPage(User.UserRole role, Integer limit, String cursor) {
+        PageRequest page = pageLimits.resolve(limit);
+
+        List<User> users;
+        if (cursor == null || cursor.isBlank()) {
+            users = role == null
+                    ? userRepository.findPageOrderedByName(page)
+                    : userRepository.findPageByRoleOrderedByName(role, page);
+        } else {
+            String[] parts = CursorCodec.decode(cursor, 3);
+            Long id;
+            try {
+                id = Long.parseLong(parts[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido", e);
+            }
+            users = role == null
+                    ? userRepository.findPageOrderedByNameAfter(parts[0], parts[1], id, page)
+                    : userRepository.findPageByRoleOrderedByNameAfter(role, parts[0], parts[1], id, page);
+        }
+
+        String nextCursor = null;
+        if (users.size() == page.getPageSize()) {
+            User last = users.get(users.size() - 1);
+            nextCursor = CursorCodec.encode(last.getLastName(), last.getFirstName(), last.getId());
+        }
+        return new CursorPage<>(users, nextCursor);
+    }
 }
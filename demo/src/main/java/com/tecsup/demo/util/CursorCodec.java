@@ -0,0 +1,61 @@
+package com.tecsup.demo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Codifica y decodifica cursores opacos para la paginación por clave (keyset).
+ * Un cursor es la lista de valores de la última fila de la página: cada valor se codifica por separado
+ * en Base64 URL-safe y se unen con puntos, un carácter que no aparece en Base64, de modo que ningún valor
+ * (por ejemplo, un nombre) puede alterar la separación de los demás.
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = ".";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Codifica los valores de la última fila en un cursor opaco
+     * 
+     * @param values Valores que identifican la posición
+     * @return Cursor codificado
+     */
+    public static String encode(Object... values) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        StringBuilder cursor = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                cursor.append(SEPARATOR);
+            }
+            cursor.append(encoder.encodeToString(String.valueOf(values[i]).getBytes(StandardCharsets.UTF_8)));
+        }
+        return cursor.toString();
+    }
+
+    /**
+     * Decodifica un cursor opaco
+     * 
+     * @param cursor Cursor recibido del cliente
+     * @param expectedParts Cantidad de valores esperados
+     * @return Valores del cursor
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String[] parts = cursor.split(Pattern.quote(SEPARATOR), -1);
+            if (parts.length != expectedParts) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new String(decoder.decode(parts[i]), StandardCharsets.UTF_8);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
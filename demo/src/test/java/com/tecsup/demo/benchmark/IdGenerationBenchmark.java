@@ -0,0 +1,175 @@
+package com.tecsup.demo.benchmark;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el rendimiento de inserción con IDs autoincrementales (IDENTITY) frente a
+ * secuencias agrupadas (SEQUENCE con bloques de 50) y lotes JDBC, sobre H2 en memoria.
+ * Con IDENTITY Hibernate necesita ejecutar cada INSERT para conocer el ID, así que no puede agruparlos.
+ *
+ * Ejecutar con: mvn test-compile y luego java -cp target/test-classes:target/classes:&lt;classpath de test&gt;
+ * com.tecsup.demo.benchmark.IdGenerationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    private static final int ROWS_PER_TRANSACTION = 1000;
+
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(IdentityTask.class)
+                .addAnnotatedClass(PooledTask.class)
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:idbench;DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.jdbc.batch_size", "50")
+                .setProperty("hibernate.order_inserts", "true")
+                .setProperty("hibernate.show_sql", "false")
+                .buildSessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void identityInserts() {
+        insert(IdentityTask::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void pooledSequenceBatchedInserts() {
+        insert(PooledTask::new);
+    }
+
+    private void insert(TaskFactory factory) {
+        LocalDateTime now = LocalDateTime.now();
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                session.persist(factory.create("Tarea " + i, "Descripción de la tarea " + i, now.plusDays(i % 30), 20.0));
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IdGenerationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @FunctionalInterface
+    private interface TaskFactory {
+        Object create(String title, String description, LocalDateTime dueDate, Double maxGrade);
+    }
+
+    /**
+     * Fila equivalente a una tarea con el ID autoincremental anterior
+     */
+    @Entity
+    @Table(name = "identity_tasks")
+    public static class IdentityTask {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(nullable = false, length = 200)
+        private String title;
+
+        @Column(nullable = false, columnDefinition = "TEXT")
+        private String description;
+
+        @Column(name = "due_date", nullable = false)
+        private LocalDateTime dueDate;
+
+        @Column(name = "max_grade")
+        private Double maxGrade;
+
+        protected IdentityTask() {
+        }
+
+        IdentityTask(String title, String description, LocalDateTime dueDate, Double maxGrade) {
+            this.title = title;
+            this.description = description;
+            this.dueDate = dueDate;
+            this.maxGrade = maxGrade;
+        }
+    }
+
+    /**
+     * Fila equivalente a una tarea con la secuencia agrupada actual
+     */
+    @Entity
+    @Table(name = "pooled_tasks")
+    public static class PooledTask {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_task_id_seq")
+        @SequenceGenerator(name = "pooled_task_id_seq", sequenceName = "pooled_tasks_seq", allocationSize = 50)
+        private Long id;
+
+        @Column(nullable = false, length = 200)
+        private String title;
+
+        @Column(nullable = false, columnDefinition = "TEXT")
+        private String description;
+
+        @Column(name = "due_date", nullable = false)
+        private LocalDateTime dueDate;
+
+        @Column(name = "max_grade")
+        private Double maxGrade;
+
+        protected PooledTask() {
+        }
+
+        PooledTask(String title, String description, LocalDateTime dueDate, Double maxGrade) {
+            this.title = title;
+            this.description = description;
+            this.dueDate = dueDate;
+            this.maxGrade = maxGrade;
+        }
+    }
+}
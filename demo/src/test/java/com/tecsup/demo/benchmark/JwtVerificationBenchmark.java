@@ -0,0 +1,107 @@
+package com.tecsup.demo.benchmark;
+
+import com.tecsup.demo.entity.User;
+import com.tecsup.demo.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide las verificaciones de tokens JWT por segundo en un solo hilo (es decir, por núcleo):
+ * la verificación anterior, que reconstruía la clave y analizaba el token tres veces; la verificación
+ * con el parser precompilado y un solo análisis; y un token frecuente servido por la cache de tokens verificados.
+ *
+ * Ejecutar con: mvn test-compile y luego java -cp target/test-classes:target/classes:&lt;classpath de test&gt;
+ * com.tecsup.demo.benchmark.JwtVerificationBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "miClaveSecretaMuySegura12345678901234567890";
+    private static final long EXPIRATION_SECONDS = 86400;
+
+    private JwtUtil uncachedJwtUtil;
+    private JwtUtil cachedJwtUtil;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        uncachedJwtUtil = new JwtUtil(SECRET, EXPIRATION_SECONDS, 0);
+        cachedJwtUtil = new JwtUtil(SECRET, EXPIRATION_SECONDS, 10000);
+
+        User user = new User();
+        user.setUsername("estudiante");
+        token = cachedJwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean previousVerification() {
+        String header = requestToken();
+        String username = legacyExtractUsername(header);
+        // validateToken volvía a extraer el usuario y analizaba el token otra vez para la expiración
+        return username.equals(legacyExtractUsername(header)) && !legacyIsTokenExpired(header);
+    }
+
+    @Benchmark
+    public Optional<Claims> singleParseVerification() {
+        return uncachedJwtUtil.verify(requestToken());
+    }
+
+    @Benchmark
+    public Optional<Claims> cachedVerification() {
+        return cachedJwtUtil.verify(requestToken());
+    }
+
+    /**
+     * Cada solicitud trae una copia nueva del token, así que su hash no está precalculado
+     */
+    private String requestToken() {
+        return new String(token);
+    }
+
+    private static Key legacySigningKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes());
+    }
+
+    private static String legacyExtractUsername(String token) {
+        return Jwts.parserBuilder().setSigningKey(legacySigningKey()).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    private static boolean legacyIsTokenExpired(String token) {
+        return Jwts.parserBuilder().setSigningKey(legacySigningKey()).build()
+                .parseClaimsJws(token).getBody().getExpiration().before(new Date());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.tecsup.demo.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GradeHistogramTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void percentileOfEmptyHistogramIsNull() {
+        assertNull(new GradeHistogram().percentile(0.5));
+    }
+
+    @Test
+    void rejectsPercentileOutsideZeroAndOne() {
+        GradeHistogram histogram = histogramOf(12);
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(-0.01));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(1.01));
+    }
+
+    @Test
+    void interpolatesWithinBucket() {
+        GradeHistogram histogram = histogramOf(10, 10.2, 10.5, 10.9);
+
+        assertEquals(10.0, histogram.percentile(0.0), DELTA);
+        assertEquals(10.5, histogram.percentile(0.5), DELTA);
+        assertEquals(10.75, histogram.percentile(0.75), DELTA);
+        assertEquals(11.0, histogram.percentile(1.0), DELTA);
+    }
+
+    @Test
+    void walksAcrossBuckets() {
+        GradeHistogram histogram = histogramOf(5, 5.5, 15, 15.5);
+
+        assertEquals(5.0, histogram.percentile(0.0), DELTA);
+        assertEquals(6.0, histogram.percentile(0.5), DELTA);
+        assertEquals(15.5, histogram.percentile(0.75), DELTA);
+        assertEquals(16.0, histogram.percentile(1.0), DELTA);
+    }
+
+    @Test
+    void skipsEmptyBucketsAtStart() {
+        assertEquals(3.0, histogramOf(3, 18).percentile(0.0), DELTA);
+    }
+
+    @Test
+    void topBucketHoldsOnlyMaximumGrade() {
+        GradeHistogram histogram = histogramOf(20, 20, 20);
+
+        assertEquals(20.0, histogram.percentile(0.0), DELTA);
+        assertEquals(20.0, histogram.percentile(0.5), DELTA);
+        assertEquals(20.0, histogram.percentile(1.0), DELTA);
+    }
+
+    @Test
+    void clampsGradesOutsideScaleToEdgeBuckets() {
+        assertEquals(0, GradeHistogram.bucketOf(-3));
+        assertEquals(19, GradeHistogram.bucketOf(19.99));
+        assertEquals(20, GradeHistogram.bucketOf(20));
+        assertEquals(20, GradeHistogram.bucketOf(25));
+    }
+
+    @Test
+    void removeNeverGoesBelowZero() {
+        GradeHistogram histogram = histogramOf(8);
+        histogram.remove(8.4);
+        histogram.remove(8.4);
+
+        assertEquals(0, histogram.getTotal());
+        assertNull(histogram.percentile(0.5));
+    }
+
+    @Test
+    void mergeSumsBuckets() {
+        GradeHistogram merged = histogramOf(4, 12).merge(histogramOf(12, 20));
+
+        assertEquals(4, merged.getTotal());
+        assertEquals(2, merged.getCounts()[12]);
+        assertEquals(histogramOf(4, 12, 12, 20), merged);
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        GradeHistogram histogram = histogramOf(0, 7.5, 7.9, 14, 20);
+        byte[] data = histogram.toBytes();
+
+        assertEquals(GradeHistogram.SERIALIZED_SIZE, data.length);
+        assertEquals(histogram, GradeHistogram.fromBytes(data));
+        assertArrayEquals(new GradeHistogram().getCounts(), GradeHistogram.fromBytes(null).getCounts());
+        assertThrows(IllegalArgumentException.class, () -> GradeHistogram.fromBytes(new byte[3]));
+    }
+
+    private static GradeHistogram histogramOf(double... grades) {
+        GradeHistogram histogram = new GradeHistogram();
+        for (double grade : grades) {
+            histogram.add(grade);
+        }
+        return histogram;
+    }
+}
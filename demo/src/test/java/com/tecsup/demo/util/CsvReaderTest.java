@@ -0,0 +1,99 @@
+package com.tecsup.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainRecordsWithLfAndCrlf() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e", "")),
+                readAll("a,b\nc,d\r\ne,"));
+    }
+
+    @Test
+    void keepsCommasAndLineBreaksInsideQuotedFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("id,nota\n1,\"linea 1\r\nlinea 2, fin\"\n2,x\n"));
+
+        assertEquals(List.of("id", "nota"), reader.next());
+        assertEquals(List.of("1", "linea 1\r\nlinea 2, fin"), reader.next());
+        assertEquals(2, reader.getRecordLine());
+        assertEquals(List.of("2", "x"), reader.next());
+        assertEquals(4, reader.getRecordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void unescapesDoubledQuotes() throws IOException {
+        assertEquals(List.of(List.of("dijo \"hola\"", "\"", "")),
+                readAll("\"dijo \"\"hola\"\"\",\"\"\"\",\"\""));
+    }
+
+    @Test
+    void treatsQuotesInsideUnquotedFieldAsText() throws IOException {
+        assertEquals(List.of(List.of("a\"b\"", "c")), readAll("a\"b\",c"));
+    }
+
+    @Test
+    void loneCarriageReturnAtEndOfFileClosesLastRecord() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\rc,d\r"));
+
+        assertEquals(List.of("a", "b"), reader.next());
+        assertEquals(List.of("c", "d"), reader.next());
+        assertEquals(2, reader.getRecordLine());
+        assertNull(reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void returnsNullForEmptyInput() throws IOException {
+        assertNull(new CsvReader(new StringReader("")).next());
+        assertNull(new CsvReader(new StringReader("\uFEFF")).next());
+    }
+
+    @Test
+    void skipsByteOrderMarkAtStartOfFile() throws IOException {
+        assertEquals(List.of(List.of("email", "nombre"), List.of("a@x.com", "Ana")),
+                readAll("\uFEFFemail,nombre\na@x.com,Ana\n"));
+    }
+
+    @Test
+    void skipsByteOrderMarkBeforeQuotedHeader() throws IOException {
+        assertEquals(List.of(List.of("email", "nombre")), readAll("\uFEFF\"email\",\"nombre\"\r\n"));
+    }
+
+    @Test
+    void keepsByteOrderMarkAfterStartOfFile() throws IOException {
+        assertEquals(List.of(List.of("a"), List.of("\uFEFFb")), readAll("a\n\uFEFFb"));
+    }
+
+    @Test
+    void rejectsUnclosedQuote() {
+        CsvReader reader = new CsvReader(new StringReader("id,nota\n1,\"sin cerrar\n2,x\n"));
+
+        IOException error = assertThrows(IOException.class, () -> {
+            reader.next();
+            reader.next();
+        });
+        assertEquals("Comilla sin cerrar en el registro de la línea 2", error.getMessage());
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                records.add(fields);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,58 @@
+package com.tecsup.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorCodecTest {
+
+    @Test
+    void roundTripsValues() {
+        String cursor = CursorCodec.encode("2026-10-18T05:00", 42L, 17.5);
+
+        assertArrayEquals(new String[]{"2026-10-18T05:00", "42", "17.5"}, CursorCodec.decode(cursor, 3));
+    }
+
+    @Test
+    void keepsSeparatorAndNonAsciiCharactersInsideValues() {
+        String cursor = CursorCodec.encode("Núñez. Ana", "a.b.c", "");
+
+        assertEquals(2, cursor.chars().filter(c -> c == '.').count());
+        assertArrayEquals(new String[]{"Núñez. Ana", "a.b.c", ""}, CursorCodec.decode(cursor, 3));
+    }
+
+    @Test
+    void producesUrlSafeCursorWithoutPadding() {
+        String cursor = CursorCodec.encode("??>>", "~~~", "a");
+
+        assertFalse(cursor.contains("+"));
+        assertFalse(cursor.contains("/"));
+        assertFalse(cursor.contains("="));
+        assertArrayEquals(new String[]{"??>>", "~~~", "a"}, CursorCodec.decode(cursor, 3));
+    }
+
+    @Test
+    void rejectsWrongNumberOfParts() {
+        String cursor = CursorCodec.encode("a", "b");
+
+        assertInvalid(cursor, 3);
+        assertInvalid(cursor, 1);
+        assertInvalid(cursor + ".", 2);
+    }
+
+    @Test
+    void rejectsMalformedBase64() {
+        assertInvalid("@@@.YQ", 2);
+        assertInvalid("YQ+.YQ", 2);
+        assertInvalid("Y.YQ", 2);
+    }
+
+    private static void assertInvalid(String cursor, int expectedParts) {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> CursorCodec.decode(cursor, expectedParts));
+        assertEquals("Cursor inválido", error.getMessage());
+    }
+}
@@ -7,8 +7,10 @@ import {
   createSubmission,
   updateSubmission,
   getSubmissionsByTask,
+  getSubmissionById,
+  getSubmissionsByUser,
+  subscribeToTaskSubmissions,
 } from "../../services/submission.service";
-import axiosInstance from "../../utils/axiosInstance";
 
 function TaskDetail() {
   const { id } = useParams();
@@ -35,6 +37,15 @@ function TaskDetail() {
     }
   }, [id, user]);
 
+  // El profesor recibe solo los cambios de las entregas en lugar de recargar la lista completa
+  useEffect(() => {
+    if (!id || !user || !isProfessor) return;
+    return subscribeToTaskSubmissions(id, {
+      onChange: applySubmissionChange,
+      onOverflow: () => loadSubmissions(),
+    });
+  }, [id, user]);
+
   const loadTask = async () => {
     try {
       setLoading(true);
@@ -56,16 +67,39 @@ function TaskDetail() {
     }
   };
 
+  const applySubmissionChange = async (change) => {
+    if (change.type === "DELETED") {
+      setAllSubmissions((prev) => prev.filter((s) => s.id !== change.submissionId));
+      return;
+    }
+    if (change.type === "CREATED") {
+      try {
+        const created = await getSubmissionById(change.submissionId);
+        setAllSubmissions((prev) => [created, ...prev.filter((s) => s.id !== created.id)]);
+      } catch (error) {
+        console.error("Error al cargar la nueva entrega:", error);
+      }
+      return;
+    }
+    setAllSubmissions((prev) =>
+      prev.map((s) =>
+        s.id === change.submissionId
+          ? { ...s, status: change.status, grade: change.grade, submissionDate: change.submissionDate }
+          : s
+      )
+    );
+  };
+
   const loadMySubmission = async () => {
     try {
-      const res = await axiosInstance.get(`/submissions`);
-      const my = res.data.find(
-        (s) => s.task.id === Number(id) && s.user.id === user.id
-      );
+      // Solo las entregas del estudiante: el listado general está paginado y puede no incluirla
+      const mine = await getSubmissionsByUser(user.id);
+      const my = mine.find((s) => s.taskId === Number(id));
       if (my) {
         setSubmission(my);
-        setForm({ fileUrl: my.fileUrl, comments: my.comments || "" });
-        setHasSubmitted(true);
+        setForm({ fileUrl: my.fileUrl || "", comments: my.comments || "" });
+        // Una fila PENDING la crea el sistema al vencer la tarea: el estudiante todavía no entregó
+        setHasSubmitted(String(my.status).toUpperCase() !== "PENDING");
       } else {
         setSubmission(null);
         setHasSubmitted(false);
@@ -387,7 +421,7 @@ function TaskDetail() {
                             color: 'var(--text-primary)',
                             marginBottom: '0.25rem'
                           }}>
-                            👤 {s.user.firstName} {s.user.lastName}
+                            👤 {s.userFirstName} {s.userLastName}
                           </div>
                           <div style={{
                             fontSize: '0.8rem',
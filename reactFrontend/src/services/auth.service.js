@@ -33,6 +33,15 @@ export const verifyToken = async (token) => {
   }
 };
 
+export const logout = async () => {
+  try {
+    // Revoca el token en el servidor; la sesión local se cierra aunque la solicitud falle
+    await axiosInstance.post(`${API_URL}/logout`);
+  } catch (error) {
+    console.error("Error cerrando sesión:", error);
+  }
+};
+
 export const getUserByToken = async (token) => {
   try {
     const response = await axiosInstance.get("/users/me", {
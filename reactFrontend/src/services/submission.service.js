@@ -1,9 +1,10 @@
 import axiosInstance from "../utils/axiosInstance";
+import { getAllPages } from "../utils/pagination";
+import { useAuthStore } from "../store/authStore";
 
 export const getSubmissions = async () => {
   try {
-    const response = await axiosInstance.get("/submissions");
-    return response.data;
+    return await getAllPages("/submissions");
   } catch (error) {
     console.error("Error obteniendo submissions:", error);
     throw new Error("Error obteniendo lista de submissions");
@@ -71,8 +72,7 @@ export const getSubmissionsByUser = async (userId) => {
 
 export const getSubmissionsByStatus = async (status) => {
   try {
-    const response = await axiosInstance.get(`/submissions/status/${status}`);
-    return response.data;
+    return await getAllPages(`/submissions/status/${status}`);
   } catch (error) {
     console.error("Error obteniendo submissions por estado:", error);
     throw new Error("Error obteniendo submissions por estado");
@@ -91,3 +91,84 @@ export const gradeSubmission = async (id, grade, feedback) => {
     throw new Error(error.response?.data?.message || "Error calificando submission");
   }
 };
+
+const RECONNECT_MIN_DELAY_MS = 1000;
+const RECONNECT_MAX_DELAY_MS = 60000;
+
+/**
+ * Se suscribe a los cambios de las entregas de una tarea (Server-Sent Events).
+ * Usa fetch en lugar de EventSource para poder enviar la cabecera Authorization.
+ * Tras un corte reconecta con espera exponencial; un error del cliente (403, 404...) no se reintenta.
+ * Devuelve una función que cierra la suscripción.
+ */
+export const subscribeToTaskSubmissions = (taskId, { onChange, onOverflow }) => {
+  const controller = new AbortController();
+  const token = useAuthStore.getState().token;
+  const baseUrl = axiosInstance.defaults.baseURL;
+
+  const handleEvent = (name, data) => {
+    if (name === "submission") onChange?.(JSON.parse(data));
+    if (name === "overflow") onOverflow?.(JSON.parse(data));
+  };
+
+  let opened = false;
+
+  const connect = async () => {
+    const response = await fetch(`${baseUrl}/submissions/task/${taskId}/events`, {
+      headers: { Authorization: `Bearer ${token}`, Accept: "text/event-stream" },
+      signal: controller.signal,
+    });
+    if (!response.ok) {
+      const error = new Error(`Error ${response.status} al suscribirse a las entregas`);
+      error.status = response.status;
+      throw error;
+    }
+    opened = true;
+
+    const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = "";
+    for (;;) {
+      const { value, done } = await reader.read();
+      if (done) break;
+      buffer += value;
+      let end;
+      while ((end = buffer.indexOf("\n\n")) >= 0) {
+        const block = buffer.slice(0, end);
+        buffer = buffer.slice(end + 2);
+        let name = "message";
+        const data = [];
+        for (const line of block.split("\n")) {
+          if (line.startsWith("event:")) name = line.slice(6).trim();
+          else if (line.startsWith("data:")) data.push(line.slice(5));
+        }
+        if (data.length) handleEvent(name, data.join("\n"));
+      }
+    }
+  };
+
+  // Reconecta tras un corte o el tiempo máximo de la conexión; al reconectar pide recargar la lista.
+  // La espera se duplica con cada intento fallido y vuelve al mínimo cuando una conexión llega a abrirse.
+  const run = async () => {
+    let delay = RECONNECT_MIN_DELAY_MS;
+    while (!controller.signal.aborted) {
+      opened = false;
+      try {
+        await connect();
+      } catch (error) {
+        if (controller.signal.aborted) return;
+        console.error("Error en la suscripción de entregas:", error);
+        const status = error.status;
+        if (status >= 400 && status < 500 && status !== 408 && status !== 429) return;
+      }
+      if (controller.signal.aborted) return;
+      onOverflow?.({ dropped: 0 });
+      if (opened) delay = RECONNECT_MIN_DELAY_MS;
+      const wait = delay / 2 + Math.random() * (delay / 2);
+      delay = Math.min(delay * 2, RECONNECT_MAX_DELAY_MS);
+      await new Promise((resolve) => setTimeout(resolve, wait));
+    }
+  };
+  run();
+
+  return () => controller.abort();
+};
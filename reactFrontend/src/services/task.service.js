@@ -1,9 +1,9 @@
 import axiosInstance from "../utils/axiosInstance";
+import { getAllPages } from "../utils/pagination";
 
 export const getTasks = async () => {
   try {
-    const response = await axiosInstance.get("/tasks");
-    return response.data;
+    return await getAllPages("/tasks");
   } catch (error) {
     console.error("Error obteniendo tareas:", error);
     throw new Error("Error obteniendo lista de tareas");
@@ -51,8 +51,7 @@ export const deleteTask = async (id) => {
 
 export const getTasksByStatus = async (status) => {
   try {
-    const response = await axiosInstance.get(`/tasks/status/${status}`);
-    return response.data;
+    return await getAllPages(`/tasks/status/${status}`);
   } catch (error) {
     console.error("Error obteniendo tareas por estado:", error);
     throw new Error("Error obteniendo tareas por estado");
@@ -1,4 +1,5 @@
 import axiosInstance from "../utils/axiosInstance";
+import { getAllPages } from "../utils/pagination";
 
 export const getCurrentUser = async () => {
   try {
@@ -12,8 +13,7 @@ export const getCurrentUser = async () => {
 
 export const getAllUsers = async () => {
   try {
-    const response = await axiosInstance.get("/users");
-    return response.data;
+    return await getAllPages("/users");
   } catch (error) {
     console.error("Error obteniendo usuarios:", error);
     throw new Error("Error obteniendo lista de usuarios");
@@ -61,8 +61,7 @@ export const deleteUser = async (id) => {
 
 export const getUsersByRole = async (role) => {
   try {
-    const response = await axiosInstance.get(`/users/role/${role}`);
-    return response.data;
+    return await getAllPages(`/users/role/${role}`);
   } catch (error) {
     console.error("Error obteniendo usuarios por rol:", error);
     throw new Error("Error obteniendo usuarios por rol");
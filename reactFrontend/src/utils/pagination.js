@@ -0,0 +1,21 @@
+import axiosInstance from "./axiosInstance";
+
+// Los listados paginados devuelven el cursor de la siguiente página en esta cabecera (axios la entrega en minúsculas)
+const NEXT_CURSOR_HEADER = "x-next-cursor";
+const PAGE_LIMIT = 500;
+
+/**
+ * Recorre todas las páginas de un listado paginado por cursor y devuelve sus elementos en orden.
+ */
+export const getAllPages = async (url, params = {}) => {
+  const items = [];
+  let cursor = null;
+  do {
+    const response = await axiosInstance.get(url, {
+      params: { ...params, limit: PAGE_LIMIT, ...(cursor ? { cursor } : {}) },
+    });
+    items.push(...response.data);
+    cursor = response.headers[NEXT_CURSOR_HEADER] || null;
+  } while (cursor);
+  return items;
+};